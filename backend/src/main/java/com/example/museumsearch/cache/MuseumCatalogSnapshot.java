@@ -0,0 +1,193 @@
+package com.example.museumsearch.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.museumsearch.dto.MuseumDTO;
+import com.example.museumsearch.event.MuseumCatalogLoadedEvent;
+import com.example.museumsearch.event.MuseumChangedEvent;
+import com.example.museumsearch.event.MuseumsImportedEvent;
+import com.example.museumsearch.mapper.MuseumMapper;
+import com.example.museumsearch.repository.MuseumRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MuseumCatalogSnapshot {
+
+    private final MuseumRepository museumRepository;
+    private final MuseumMapper museumMapper;
+    private final ObjectMapper objectMapper;
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "museum-catalog-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    private volatile Snapshot snapshot;
+
+    @PreDestroy
+    public void close() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    @EventListener(MuseumCatalogLoadedEvent.class)
+    public void load() {
+        scheduleRebuild();
+    }
+
+    @EventListener
+    public void onMuseumChanged(MuseumChangedEvent event) {
+        scheduleRebuild();
+    }
+
+    @EventListener
+    public void onMuseumsImported(MuseumsImportedEvent event) {
+        scheduleRebuild();
+    }
+
+    // 起動直後で未構築の場合だけリクエストスレッドで組み立てる。
+    // 同時に来たリクエストはロックを取った後に構築済みかどうかを見直し、組み立ては1回で済ませる
+    public Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null) return current;
+        synchronized (this) {
+            current = snapshot;
+            return current != null ? current : rebuild();
+        }
+    }
+
+    // q=0 で明示的に拒否されたものは受け付けない。gzip の指定がなければ * の指定に従う
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+
+        Boolean wildcard = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].strip().toLowerCase(Locale.ROOT);
+            boolean accepted = quality(parts) > 0;
+            if (coding.equals("gzip") || coding.equals("x-gzip")) return accepted;
+            if (coding.equals("*")) wildcard = accepted;
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].strip();
+            if (!parameter.regionMatches(true, 0, "q=", 0, 2)) continue;
+            try {
+                return Double.parseDouble(parameter.substring(2).strip());
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return 1;
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildScheduled.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.error("美術館一覧スナップショットの構築に失敗しました", e);
+                }
+            });
+        }
+    }
+
+    private synchronized Snapshot rebuild() {
+        List<MuseumDTO> museums = museumRepository.findAll().stream()
+            .map(museumMapper::toDTO)
+            .toList();
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(museums);
+            String etag = etag(json);
+            Snapshot built = new Snapshot(json, gzip(json), "\"" + etag + "\"", "\"" + etag + "-gzip\"");
+            snapshot = built;
+            log.info("美術館一覧スナップショットを構築しました: {}件, {}bytes (gzip {}bytes)", museums.size(), json.length, built.gzip.length);
+            return built;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("美術館一覧のシリアライズに失敗しました", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static String etag(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class Snapshot {
+        private final byte[] json;
+        private final byte[] gzip;
+        private final String etag;
+        // gzip した本文は別の表現なので、同じ強い ETag を付けない
+        private final String gzipEtag;
+
+        public byte[] body(boolean gzip) {
+            return gzip ? this.gzip : json;
+        }
+
+        public String etag(boolean gzip) {
+            return gzip ? gzipEtag : etag;
+        }
+
+        // If-None-Match は返す表現の ETag と弱い比較で判定する
+        public boolean matches(String ifNoneMatch, boolean gzip) {
+            if (ifNoneMatch == null) return false;
+            String current = etag(gzip);
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.strip();
+                if (tag.equals("*") || tag.equals(current) || tag.equals("W/" + current)) return true;
+            }
+            return false;
+        }
+    }
+}
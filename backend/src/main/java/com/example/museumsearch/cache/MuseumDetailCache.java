@@ -0,0 +1,75 @@
+package com.example.museumsearch.cache;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.museumsearch.dto.MuseumDTO;
+import com.example.museumsearch.event.MuseumCatalogLoadedEvent;
+import com.example.museumsearch.event.MuseumChangedEvent;
+import com.example.museumsearch.mapper.MuseumMapper;
+import com.example.museumsearch.repository.MuseumRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MuseumDetailCache {
+
+    private static final String CACHE_NAME = "museumDetail";
+
+    private final MuseumRepository museumRepository;
+    private final MuseumMapper museumMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${museum.detail-cache.maximum-size:5000}")
+    private long maximumSize;
+
+    @Value("${museum.detail-cache.expire-after-write:PT10M}")
+    private Duration expireAfterWrite;
+
+    private LoadingCache<Long, MuseumDTO> details;
+
+    @PostConstruct
+    public void init() {
+        details = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats()
+            .build(this::load);
+        CaffeineCacheMetrics.monitor(meterRegistry, details, CACHE_NAME);
+    }
+
+    public MuseumDTO get(Long id) {
+        return details.get(id);
+    }
+
+    private MuseumDTO load(Long id) {
+        return museumRepository.findById(id)
+            .map(museumMapper::toDTO)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "指定されたIDの美術館が見つかりません: " + id));
+    }
+
+    // 読み込み中の同じキーがあれば完了を待ってから破棄されるため、更新前の値が残ることはない
+    @EventListener(MuseumCatalogLoadedEvent.class)
+    public void onCatalogLoaded() {
+        details.invalidateAll();
+    }
+
+    @EventListener
+    public void onMuseumChanged(MuseumChangedEvent event) {
+        details.invalidate(event.getMuseumId());
+        log.debug("美術館詳細キャッシュを破棄しました: id={}", event.getMuseumId());
+    }
+}
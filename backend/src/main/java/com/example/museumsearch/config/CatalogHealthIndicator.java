@@ -0,0 +1,33 @@
+package com.example.museumsearch.config;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+// 美術館データの読み込みが終わるまで readiness を OUT_OF_SERVICE にする
+@Component
+@RequiredArgsConstructor
+public class CatalogHealthIndicator implements HealthIndicator {
+
+    private final DataLoader dataLoader;
+
+    @Override
+    public Health health() {
+        if (dataLoader.getFailure() != null) {
+            return Health.down()
+                .withDetail("error", dataLoader.getFailure())
+                .withDetail("processedRows", dataLoader.getProcessedRows())
+                .build();
+        }
+        if (!dataLoader.isLoaded()) {
+            return Health.outOfService()
+                .withDetail("processedRows", dataLoader.getProcessedRows())
+                .build();
+        }
+        return Health.up()
+            .withDetail("processedRows", dataLoader.getProcessedRows())
+            .build();
+    }
+}
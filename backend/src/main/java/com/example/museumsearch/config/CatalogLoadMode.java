@@ -0,0 +1,6 @@
+package com.example.museumsearch.config;
+
+public enum CatalogLoadMode {
+    SYNC,
+    RELOAD
+}
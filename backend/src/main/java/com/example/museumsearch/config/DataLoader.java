@@ -3,118 +3,353 @@ package com.example.museumsearch.config;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.example.museumsearch.event.MuseumCatalogLoadedEvent;
 import com.example.museumsearch.model.Museum;
 import com.example.museumsearch.model.MuseumStatus;
 import com.example.museumsearch.repository.MuseumRepository;
-import com.opencsv.CSVParserBuilder;
-import com.opencsv.CSVReader;
-import com.opencsv.CSVReaderBuilder;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 @Component
+@DependsOn("museumSchemaInitializer")
 @RequiredArgsConstructor
 public class DataLoader {
     
     private final MuseumRepository museumRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final MuseumCsvParser csvParser;
 
-    private final String normalizeNewLine(String value) {
-        if (value == null) return null;
-        
-        String replaced = value.replace("\\n", "\n");
-        return replaced;
+    @Value("${museum.loader.batch-size:500}")
+    private int batchSize;
+
+    @Value("${museum.loader.mode:sync}")
+    private CatalogLoadMode loadMode;
+
+    // 失敗すると MuseumCatalogLoadedEvent が出ず、各インデックスが空のまま残る。
+    // DB の一時的な障害なら回復するよう、間隔を倍にしながらこの回数まで試す
+    @Value("${museum.loader.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${museum.loader.retry-backoff:PT5S}")
+    private Duration retryBackoff;
+
+    // 起動を止めないよう、読み込みは起動完了後に専用スレッドで行う
+    private final ScheduledExecutorService loadExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "museum-catalog-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // 変換は並列に行うため、スレッドごとにダイジェストを使い回す
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(DataLoader::sha256);
+
+    private final AtomicLong processedRows = new AtomicLong();
+    private volatile boolean loaded;
+    private volatile String failure;
+    private Timer loadTimer;
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("museum.catalog.load.rows", processedRows, AtomicLong::get)
+            .description("読み込み済みのCSV行数")
+            .register(meterRegistry);
+        loadTimer = Timer.builder("museum.catalog.load.duration")
+            .tag("mode", loadMode.name().toLowerCase())
+            .register(meterRegistry);
     }
 
-    private String getField(String[] fields, int index) {
-        return index < fields.length ? fields[index] : "";
+    @PreDestroy
+    public void close() {
+        loadExecutor.shutdownNow();
     }
 
-    private double parseDoubleSafely(String value) {
-        if (value == null || value.trim().isEmpty()) {
-            return 0.0;
-        }
-        return Double.parseDouble(value.trim());
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        loadExecutor.execute(() -> attempt(1));
     }
 
-    private java.time.LocalDate parseLocalDateSafely(String value) {
-        if (value == null || value.trim().isEmpty()) {
-            return null;
-        }
+    private void attempt(int attempt) {
         try {
-            String cleaned = value.replaceAll("\\(.*?\\)", "").trim();
-
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("uuuu年M月d日");
-            return LocalDate.parse(cleaned, formatter);
-        } catch (Exception e) {
-            return null;
+            loadMuseumData();
+            failure = null;
+        } catch (RuntimeException e) {
+            failure = e.getMessage();
+            if (attempt >= maxAttempts) {
+                log.error("美術館データの読み込みに失敗しました ({}回目、再試行を打ち切ります)", attempt, e);
+                return;
+            }
+            long delayMillis = retryBackoff.toMillis() << Math.min(attempt - 1, 16);
+            log.warn("美術館データの読み込みに失敗しました ({}回目)。{}ms後に再試行します: {}", attempt, delayMillis, e.getMessage());
+            loadExecutor.schedule(() -> attempt(attempt + 1), delayMillis, TimeUnit.MILLISECONDS);
         }
     }
 
-    @PostConstruct
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public long getProcessedRows() {
+        return processedRows.get();
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
     public void loadMuseumData() {
+        processedRows.set(0);
 
-        museumRepository.deleteAll();
+        Map<String, SourceRow> existing = new HashMap<>();
+        List<Long> duplicates = new ArrayList<>();
+        if (loadMode == CatalogLoadMode.RELOAD) {
+            museumRepository.deleteAllInBatch();
+        } else {
+            loadSourceRows(existing, duplicates);
+        }
 
         InputStream inputStream = getClass().getResourceAsStream("/data/museums.csv");
 
         if (inputStream == null) {
             throw new IllegalArgumentException("CSVファイルが見つかりません: /data/museums.csv");
         }
-        
-        try (CSVReader csvReader = new CSVReaderBuilder(
-                new InputStreamReader(inputStream, StandardCharsets.UTF_8))
-            .withCSVParser(new CSVParserBuilder()
-                .withSeparator(',')
-                .withQuoteChar('"')
-                .withEscapeChar('\\')
-                .withStrictQuotes(false)
-                .withIgnoreQuotations(false)
-                .build())
-            .build()) {
-
-                String[] fields;
-                boolean isFirstLine = true;
-                
-                while ((fields = csvReader.readNext()) != null) {
-                    if (isFirstLine) {
-                        isFirstLine = false;
-                        continue;
+
+        LoadStats stats = new LoadStats();
+        List<Museum> inserts = new ArrayList<>(batchSize);
+        Map<SourceRow, Museum> updates = new HashMap<>();
+        Set<String> seen = new HashSet<>();
+
+        // 解析・変換・検証は並列に、重複判定と書き込みは元の順序どおり1スレッドで行う
+        try {
+            stats.parseNanos = csvParser.parse(
+                new InputStreamReader(inputStream, StandardCharsets.UTF_8),
+                (fields, line) -> convert(fields, line, existing, stats),
+                row -> {
+                    if (!seen.add(row.key)) {
+                        stats.skipped++;
+                        log.warn("CSVの{}行目をスキップします: 名称と展示名が重複しています ({})", row.line, row.name);
+                        return;
+                    }
+                    if (row.unchanged) {
+                        stats.unchanged++;
+                        return;
+                    }
+                    if (row.violation != null) {
+                        stats.skipped++;
+                        log.warn("CSVの{}行目をスキップします: {}", row.line, row.violation);
+                        return;
                     }
 
-                    Museum museum = Museum.builder()
-                        .name(getField(fields, 0))
-                        .address(getField(fields, 1))
-                        .prefecture(getField(fields, 2))
-                        .phoneNumber(getField(fields, 3))
-                        .exhibition(getField(fields, 4))
-                        .imageProvider(getField(fields, 5))
-                        .exhibitionImage(getField(fields, 6))
-                        .museumUrl(getField(fields, 7))
-                        .exhibitionUrl(getField(fields, 8))
-                        .startDate(parseLocalDateSafely(getField(fields, 9)))
-                        .endDate(parseLocalDateSafely(getField(fields, 10)))
-                        .description(normalizeNewLine(getField(fields, 11)))
-                        .openingHours(normalizeNewLine(getField(fields,12)))
-                        .closingDays(normalizeNewLine(getField(fields, 13)))
-                        .admissionFee(normalizeNewLine(getField(fields, 14)))
-                        .access(normalizeNewLine(getField(fields, 15)))
-                        .latitude(parseDoubleSafely(getField(fields, 16)))
-                        .longitude(parseDoubleSafely(getField(fields, 17)))
-                        .category(getField(fields, 18))
-                        .build();
-
-                    museum.updateStatus(MuseumStatus.APPROVED);
-                    museumRepository.save(museum);
-                }
-        } catch (Exception e) {
-            e.printStackTrace();
+                    SourceRow current = existing.get(row.key);
+                    if (current == null) {
+                        inserts.add(row.museum);
+                        if (inserts.size() >= batchSize) insert(inserts, stats);
+                    } else {
+                        updates.put(current, row.museum);
+                        if (updates.size() >= batchSize) update(updates, stats);
+                    }
+                });
+            insert(inserts, stats);
+            update(updates, stats);
+        } catch (RuntimeException e) {
             throw new RuntimeException("CSV読み込み失敗" + e.getMessage(), e);
         }
+
+        List<Long> removed = new ArrayList<>(duplicates);
+        existing.forEach((key, row) -> {
+            if (!seen.contains(key) && !row.archived) removed.add(row.id);
+        });
+        archive(removed, stats);
+
+        long elapsedMillis = Math.max(TimeUnit.NANOSECONDS.toMillis(stats.elapsedNanos()), 1);
+        log.info("美術館データを{}しました: 追加 {}件, 更新 {}件, 変更なし {}件, アーカイブ {}件 (スキップ {}件), {}ms, {}件/秒 [解析 {}ms, 変換 {}ms (各スレッドの合計), 書き込み {}ms]",
+            loadMode == CatalogLoadMode.RELOAD ? "再読み込み" : "同期",
+            stats.inserted, stats.updated, stats.unchanged, stats.archived, stats.skipped,
+            elapsedMillis, (stats.inserted + stats.updated + stats.unchanged) * 1000 / elapsedMillis,
+            TimeUnit.NANOSECONDS.toMillis(stats.parseNanos),
+            TimeUnit.NANOSECONDS.toMillis(stats.convertNanos.sum()),
+            TimeUnit.NANOSECONDS.toMillis(stats.writeNanos));
+
+        loadTimer.record(stats.elapsedNanos(), TimeUnit.NANOSECONDS);
+        eventPublisher.publishEvent(new MuseumCatalogLoadedEvent(stats.inserted, stats.updated, stats.archived, elapsedMillis));
+        loaded = true;
+    }
+
+    // 並列に呼ばれる。existing は読み込み専用で、内容が変わっていない行は変換も検証もしない
+    private ParsedRow convert(String[] fields, long line, Map<String, SourceRow> existing, LoadStats stats) {
+        processedRows.incrementAndGet();
+        long started = System.nanoTime();
+        ParsedRow row = new ParsedRow(line, MuseumCsvMapping.getField(fields, 0), MuseumCsvMapping.sourceKey(fields));
+        String hash = sourceHash(DIGEST.get(), fields);
+
+        SourceRow current = existing.get(row.key);
+        if (current != null && !current.archived && hash.equals(current.hash)) {
+            row.unchanged = true;
+        } else {
+            row.museum = MuseumCsvMapping.toMuseum(fields);
+            row.museum.updateSource(row.key, hash);
+            Set<ConstraintViolation<Museum>> violations = validator.validate(row.museum);
+            if (!violations.isEmpty()) row.violation = violations.iterator().next().getMessage();
+        }
+        stats.convertNanos.add(System.nanoTime() - started);
+        return row;
+    }
+
+    // ARCHIVED の行も含めて読むため、エンティティの制約を通らない SQL で取得する。利用者が登録した美術館は対象外
+    private void loadSourceRows(Map<String, SourceRow> existing, List<Long> duplicates) {
+        jdbcTemplate.query(
+            "SELECT id, source_key, name, exhibition, source_hash, status FROM museums WHERE created_by_id IS NULL ORDER BY id",
+            rs -> {
+                String key = rs.getString("source_key");
+                if (key == null) key = MuseumCsvMapping.sourceKey(rs.getString("name"), rs.getString("exhibition"));
+                SourceRow row = new SourceRow(rs.getLong("id"), rs.getString("source_hash"), MuseumStatus.ARCHIVED.name().equals(rs.getString("status")));
+                if (existing.putIfAbsent(key, row) != null && !row.archived) duplicates.add(row.id);
+            });
+    }
+
+    private void insert(List<Museum> batch, LoadStats stats) {
+        if (batch.isEmpty()) return;
+
+        long writeStarted = System.nanoTime();
+        write(() -> museumRepository.saveAll(batch));
+        stats.writeNanos += System.nanoTime() - writeStarted;
+        stats.inserted += batch.size();
+        batch.clear();
+    }
+
+    // アーカイブ済みの行は先に戻してから読み込む (エンティティからは見えないため)
+    private void update(Map<SourceRow, Museum> batch, LoadStats stats) {
+        if (batch.isEmpty()) return;
+
+        long writeStarted = System.nanoTime();
+        Map<Long, Museum> sources = new HashMap<>();
+        List<Object[]> restored = new ArrayList<>();
+        batch.forEach((row, museum) -> {
+            sources.put(row.id, museum);
+            if (row.archived) restored.add(new Object[] { row.id });
+        });
+        write(() -> {
+            if (!restored.isEmpty()) {
+                jdbcTemplate.batchUpdate("UPDATE museums SET status = 'APPROVED' WHERE id = ?", restored);
+            }
+            for (Museum museum : museumRepository.findAllById(sources.keySet())) {
+                museum.updateFromSource(sources.get(museum.getId()));
+            }
+        });
+        stats.writeNanos += System.nanoTime() - writeStarted;
+        stats.updated += batch.size();
+        batch.clear();
+    }
+
+    private void archive(List<Long> ids, LoadStats stats) {
+        if (ids.isEmpty()) return;
+
+        long writeStarted = System.nanoTime();
+        List<Object[]> args = ids.stream().map(id -> new Object[] { id }).toList();
+        jdbcTemplate.batchUpdate("UPDATE museums SET status = 'ARCHIVED' WHERE id = ?", args);
+        stats.writeNanos += System.nanoTime() - writeStarted;
+        stats.archived += ids.size();
+    }
+
+    // 1バッチを1トランザクションで書き込み、永続化コンテキストを空にしてメモリを一定に保つ
+    private void write(Runnable work) {
+        transactionTemplate.executeWithoutResult(status -> {
+            work.run();
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    private static String sourceHash(MessageDigest digest, String[] fields) {
+        for (String field : fields) {
+            digest.update(field.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0x1f);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class LoadStats {
+        private final long startedNanos = System.nanoTime();
+        private long parseNanos;
+        private final LongAdder convertNanos = new LongAdder();
+        private long writeNanos;
+        private long inserted;
+        private long updated;
+        private long unchanged;
+        private long archived;
+        private long skipped;
+
+        long elapsedNanos() {
+            return System.nanoTime() - startedNanos;
+        }
+    }
+
+    private static class ParsedRow {
+        private final long line;
+        private final String name;
+        private final String key;
+        private boolean unchanged;
+        private Museum museum;
+        private String violation;
+
+        ParsedRow(long line, String name, String key) {
+            this.line = line;
+            this.name = name;
+            this.key = key;
+        }
+    }
+
+    @AllArgsConstructor
+    private static class SourceRow {
+        private final long id;
+        private final String hash;
+        private final boolean archived;
     }
 }
@@ -0,0 +1,20 @@
+package com.example.museumsearch.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+@Component
+@ConditionalOnProperty(name = "nearby.mode", havingValue = "database")
+@RequiredArgsConstructor
+public class EarthDistanceIndexInitializer {
+
+    private final PostgresScriptRunner scriptRunner;
+
+    @PostConstruct
+    public void createIndexes() {
+        scriptRunner.run("db/earthdistance-indexes.sql", "位置インデックス(earthdistance)の作成");
+    }
+}
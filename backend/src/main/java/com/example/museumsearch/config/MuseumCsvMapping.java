@@ -0,0 +1,85 @@
+package com.example.museumsearch.config;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import com.example.museumsearch.model.Museum;
+import com.example.museumsearch.model.MuseumStatus;
+
+// CSV の列と Museum の対応。並列に呼ばれるため、書式や正規表現は使い回せる不変オブジェクトだけを持つ
+public class MuseumCsvMapping {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("uuuu年M月d日");
+    private static final Pattern PARENTHESES = Pattern.compile("\\(.*?\\)");
+
+    // data/museums.csv の見出しと同じ並び。NDJSON ではこの名前をキーとして読む
+    public static final List<String> COLUMNS = List.of(
+        "name", "address", "prefecture", "phone_number", "exhibition", "image_provider", "exhibition_image",
+        "museum_url", "exhibition_url", "startDate", "endDate", "description", "opening_hours", "closing_days",
+        "admission_fee", "access", "latitude", "longitude", "category");
+
+    public static Museum toMuseum(String[] fields) {
+        Museum museum = Museum.builder()
+            .name(getField(fields, 0))
+            .address(getField(fields, 1))
+            .prefecture(getField(fields, 2))
+            .phoneNumber(getField(fields, 3))
+            .exhibition(getField(fields, 4))
+            .imageProvider(getField(fields, 5))
+            .exhibitionImage(getField(fields, 6))
+            .museumUrl(getField(fields, 7))
+            .exhibitionUrl(getField(fields, 8))
+            .startDate(parseLocalDateSafely(getField(fields, 9)))
+            .endDate(parseLocalDateSafely(getField(fields, 10)))
+            .description(normalizeNewLine(getField(fields, 11)))
+            .openingHours(normalizeNewLine(getField(fields, 12)))
+            .closingDays(normalizeNewLine(getField(fields, 13)))
+            .admissionFee(normalizeNewLine(getField(fields, 14)))
+            .access(normalizeNewLine(getField(fields, 15)))
+            .latitude(parseDoubleSafely(getField(fields, 16)))
+            .longitude(parseDoubleSafely(getField(fields, 17)))
+            .category(getField(fields, 18))
+            .build();
+
+        museum.updateStatus(MuseumStatus.APPROVED);
+        return museum;
+    }
+
+    // 名称 + 展示名で CSV の行を識別する
+    public static String sourceKey(String name, String exhibition) {
+        return (name == null ? "" : name) + '\u001f' + (exhibition == null ? "" : exhibition);
+    }
+
+    public static String sourceKey(String[] fields) {
+        return sourceKey(getField(fields, 0), getField(fields, 4));
+    }
+
+    public static String getField(String[] fields, int index) {
+        return index < fields.length ? fields[index] : "";
+    }
+
+    private static String normalizeNewLine(String value) {
+        if (value == null || value.indexOf("\\n") < 0) return value;
+        return value.replace("\\n", "\n");
+    }
+
+    private static double parseDoubleSafely(String value) {
+        if (value == null) return 0.0;
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? 0.0 : Double.parseDouble(trimmed);
+    }
+
+    private static LocalDate parseLocalDateSafely(String value) {
+        if (value == null || value.isBlank()) return null;
+
+        String cleaned = value.indexOf('(') < 0 ? value.trim() : PARENTHESES.matcher(value).replaceAll("").trim();
+        try {
+            return cleaned.indexOf('-') < 0 ? LocalDate.parse(cleaned, DATE_FORMATTER) : LocalDate.parse(cleaned);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.museumsearch.config;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.opencsv.CSVParser;
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.exceptions.CsvValidationException;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+// CSV をレコード境界で分割し、チャンクごとに ForkJoinPool で解析・変換する。
+// 結果は元の順序のまま呼び出し元スレッドへ渡し、未処理のチャンク数を上限で抑える
+@Slf4j
+@Component
+public class MuseumCsvParser {
+
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+    private static final char ESCAPE = '\\';
+
+    @Value("${museum.loader.parallelism:0}")
+    private int parallelism;
+
+    @Value("${museum.loader.chunk-records:1000}")
+    private int chunkRecords;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads);
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    // 先頭行は見出しとして読み飛ばす。戻り値は各スレッドで CSV の解析に使った時間の合計 (ナノ秒)
+    public <T> long parse(Reader source, BiFunction<String[], Long, T> convert, Consumer<T> sink) {
+        LongAdder parseNanos = new LongAdder();
+        Deque<Future<List<T>>> pending = new ArrayDeque<>();
+        int maxPending = pool.getParallelism() * 2;
+
+        try (Reader reader = source) {
+            ChunkSplitter splitter = new ChunkSplitter(reader);
+            splitter.next(1);
+            while (true) {
+                long firstLine = splitter.lineNumber + 1;
+                String chunk = splitter.next(chunkRecords);
+                if (chunk == null) break;
+
+                if (pending.size() >= maxPending) drain(pending.poll(), sink);
+                pending.add(pool.submit(() -> parseChunk(chunk, firstLine, convert, parseNanos)));
+            }
+            while (!pending.isEmpty()) {
+                drain(pending.poll(), sink);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+        }
+        return parseNanos.sum();
+    }
+
+    private <T> List<T> parseChunk(String chunk, long firstLine, BiFunction<String[], Long, T> convert, LongAdder parseNanos) {
+        List<T> results = new ArrayList<>(chunkRecords);
+        try (CSVReader csvReader = new CSVReaderBuilder(new StringReader(chunk)).withCSVParser(csvParser()).build()) {
+            long lineOffset = firstLine;
+            while (true) {
+                long started = System.nanoTime();
+                String[] fields = csvReader.readNext();
+                parseNanos.add(System.nanoTime() - started);
+                if (fields == null) break;
+
+                results.add(convert.apply(fields, lineOffset));
+                lineOffset = firstLine + csvReader.getLinesRead();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (CsvValidationException e) {
+            throw new IllegalArgumentException("CSVの" + firstLine + "行目以降を解析できません: " + e.getMessage(), e);
+        }
+        return results;
+    }
+
+    private <T> void drain(Future<List<T>> future, Consumer<T> sink) {
+        try {
+            future.get().forEach(sink);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("CSVの解析が中断されました", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public static CSVParser csvParser() {
+        return new CSVParserBuilder()
+            .withSeparator(SEPARATOR)
+            .withQuoteChar(QUOTE)
+            .withEscapeChar(ESCAPE)
+            .withStrictQuotes(false)
+            .withIgnoreQuotations(false)
+            .build();
+    }
+
+    // 引用符の内側にある改行はレコード境界として扱わない。エスケープは opencsv と同じく引用符とエスケープ文字にだけ効く
+    private static class ChunkSplitter {
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private int position;
+        private int limit;
+        private long lineNumber;
+
+        ChunkSplitter(Reader reader) {
+            this.reader = reader;
+        }
+
+        String next(int records) throws IOException {
+            StringBuilder chunk = new StringBuilder();
+            boolean quoted = false;
+            boolean escaped = false;
+            int count = 0;
+            while (true) {
+                if (position == limit) {
+                    limit = reader.read(buffer);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        if (chunk.isEmpty()) return null;
+                        lineNumber++;
+                        return chunk.toString();
+                    }
+                }
+
+                int start = position;
+                while (position < limit) {
+                    char c = buffer[position++];
+                    boolean literal = escaped && (c == QUOTE || c == ESCAPE);
+                    escaped = false;
+                    if (c == '\n') {
+                        lineNumber++;
+                        if (!quoted && ++count >= records) {
+                            chunk.append(buffer, start, position - start);
+                            return chunk.toString();
+                        }
+                    } else if (literal) {
+                        continue;
+                    } else if (c == ESCAPE) {
+                        escaped = true;
+                    } else if (c == QUOTE) {
+                        quoted = !quoted;
+                    }
+                }
+                chunk.append(buffer, start, position - start);
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.museumsearch.config;
+
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+// ddl-auto=update では変わらないステータスの制約を張り直し、
+// IDENTITY 時代に採番済みの id と衝突しないようシーケンスを既存の最大 id 以上に進める
+@Component
+@RequiredArgsConstructor
+public class MuseumSchemaInitializer {
+
+    private final PostgresScriptRunner scriptRunner;
+
+    @PostConstruct
+    public void migrate() {
+        scriptRunner.run("db/museum-schema.sql", "美術館テーブルの調整");
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.museumsearch.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.datasource.init.ScriptException;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+// ddl-auto がテーブルを作った後に PostgreSQL 固有のスクリプトを流す。
+// 失敗しても起動は止めず、該当する機能が遅くなるだけにする
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class PostgresScriptRunner {
+
+    private final DataSource dataSource;
+
+    public void run(String script, String description) {
+        if (!isPostgreSQL()) {
+            log.info("PostgreSQL以外のため、{}をスキップします", description);
+            return;
+        }
+        try {
+            new ResourceDatabasePopulator(new ClassPathResource(script)).execute(dataSource);
+            log.info("{}が完了しました", description);
+        } catch (ScriptException e) {
+            log.warn("{}に失敗しました: {}", description, e.getMessage());
+        }
+    }
+
+    private boolean isPostgreSQL() {
+        try (Connection connection = dataSource.getConnection()) {
+            return "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            log.warn("データベースの種類を判定できません: {}", e.getMessage());
+            return false;
+        }
+    }
+}
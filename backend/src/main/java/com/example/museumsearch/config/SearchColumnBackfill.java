@@ -0,0 +1,52 @@
+package com.example.museumsearch.config;
+
+import java.util.List;
+
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.example.museumsearch.util.JapaneseTextNormalizer;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class SearchColumnBackfill {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void backfill() {
+        int museums = backfill("museums", List.of("name", "exhibition", "address", "description"));
+        int comments = backfill("comments", List.of("content", "username"));
+        if (museums + comments > 0) {
+            log.info("検索用の正規化カラムを補完しました: museums={}, comments={}", museums, comments);
+        }
+    }
+
+    // 正規化カラム追加前に登録された行は、エンティティのコールバックを経ずにここで埋める。
+    // 埋まっていないカラムを持つ行だけを読み、既に入っている値は書き換えない
+    private int backfill(String table, List<String> columns) {
+        String select = "SELECT id, " + String.join(", ", columns) + " FROM " + table + " WHERE "
+            + String.join(" OR ", columns.stream().map(column -> "(" + column + "_normalized IS NULL AND " + column + " IS NOT NULL)").toList());
+        String update = "UPDATE " + table + " SET "
+            + String.join(", ", columns.stream().map(column -> column + "_normalized = COALESCE(" + column + "_normalized, ?)").toList())
+            + " WHERE id = ?";
+
+        List<Object[]> rows = jdbcTemplate.query(select, (rs, rowNum) -> {
+            Object[] row = new Object[columns.size() + 1];
+            for (int i = 0; i < columns.size(); i++) {
+                row[i] = JapaneseTextNormalizer.normalize(rs.getString(columns.get(i)));
+            }
+            row[columns.size()] = rs.getLong("id");
+            return row;
+        });
+        if (!rows.isEmpty()) jdbcTemplate.batchUpdate(update, rows);
+        return rows.size();
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.museumsearch.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+@Component
+@ConditionalOnProperty(name = "search.trigram-indexes.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class TrigramIndexInitializer {
+
+    private final PostgresScriptRunner scriptRunner;
+
+    @PostConstruct
+    public void createIndexes() {
+        scriptRunner.run("db/trigram-indexes.sql", "トライグラムインデックスの作成");
+    }
+}
@@ -2,8 +2,8 @@ package com.example.museumsearch.controller;
 
 import java.time.LocalDateTime;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -32,12 +32,16 @@ public class AdminCommentController {
     private final CommentMapper commentMapper;
 
     @GetMapping
-    public ResponseEntity<Page<CommentDTO>> getAllComments(
+    public ResponseEntity<Slice<CommentDTO>> getAllComments(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean slice
     ) {
-        Page<Comment> commentPage = commentService.findAllComments(PageRequest.of(page, size, Sort.by("createdAt").descending()));
-        Page<CommentDTO> dtoPage = commentPage.map(commentMapper::toDTO);
+        PageRequest pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+        Slice<Comment> commentPage = slice
+            ? commentService.sliceAllComments(pageable)
+            : commentService.findAllComments(pageable);
+        Slice<CommentDTO> dtoPage = commentPage.map(commentMapper::toDTO);
         return ResponseEntity.ok(dtoPage);
     }
 
@@ -57,13 +61,17 @@ public class AdminCommentController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Page<CommentDTO>> searchComments(
+    public ResponseEntity<Slice<CommentDTO>> searchComments(
         @RequestParam String keyword,
         @RequestParam(defaultValue = "0") int page,
-        @RequestParam(defaultValue = "10") int size) {
+        @RequestParam(defaultValue = "10") int size,
+        @RequestParam(defaultValue = "false") boolean slice) {
 
-        Page<Comment> comments = commentService.searchComments(keyword, PageRequest.of(page, size, Sort.by("createdAt").descending()));
-        Page<CommentDTO> dtoPage = comments.map(commentMapper::toDTO);
+        PageRequest pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+        Slice<Comment> comments = slice
+            ? commentService.sliceComments(keyword, pageable)
+            : commentService.searchComments(keyword, pageable);
+        Slice<CommentDTO> dtoPage = comments.map(commentMapper::toDTO);
         return ResponseEntity.ok(dtoPage);
     }
 }
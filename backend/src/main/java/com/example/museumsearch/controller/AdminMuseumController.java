@@ -1,18 +1,35 @@
 package com.example.museumsearch.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.List;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 
+import com.example.museumsearch.dto.MuseumImportFormat;
+import com.example.museumsearch.dto.MuseumImportReport;
 import com.example.museumsearch.model.Museum;
+import com.example.museumsearch.model.User;
+import com.example.museumsearch.repository.UserRepository;
+import com.example.museumsearch.service.MuseumImportService;
 import com.example.museumsearch.service.MuseumService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -24,6 +41,8 @@ import lombok.extern.slf4j.Slf4j;
 public class AdminMuseumController {
 
     private final MuseumService museumService;
+    private final MuseumImportService museumImportService;
+    private final UserRepository userRepository;
 
     @GetMapping("/approved")
     public ResponseEntity<List<Museum>> getApprovedMuseums() {
@@ -48,4 +67,43 @@ public class AdminMuseumController {
         log.info("美術館を拒否します: id={}", id);
         return ResponseEntity.ok(museumService.rejectMuseum(id));
     }
+
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<MuseumImportReport> importMuseums(
+        @RequestPart("file") MultipartFile file,
+        @AuthenticationPrincipal org.springframework.security.core.userdetails.User user
+    ) throws IOException {
+        MuseumImportFormat format = MuseumImportFormat.of(file.getContentType(), file.getOriginalFilename());
+        log.info("美術館の一括取り込みを開始します: {} ({})", file.getOriginalFilename(), format);
+        return accepted(museumImportService.startImport(file.getInputStream(), format, currentUser(user)));
+    }
+
+    // multipart の上限を超える大きなファイルは、本文に直接 CSV / NDJSON を載せて送る
+    @PostMapping(value = "/import", consumes = { "text/csv", "application/x-ndjson" })
+    public ResponseEntity<MuseumImportReport> importMuseums(
+        @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+        HttpServletRequest request,
+        @AuthenticationPrincipal org.springframework.security.core.userdetails.User user
+    ) throws IOException {
+        MuseumImportFormat format = MuseumImportFormat.of(contentType, null);
+        log.info("美術館の一括取り込みを開始します: {}", format);
+        InputStream body = request.getInputStream();
+        return accepted(museumImportService.startImport(body, format, currentUser(user)));
+    }
+
+    @GetMapping("/import/{id}")
+    public ResponseEntity<MuseumImportReport> getImport(@PathVariable String id) {
+        return ResponseEntity.ok(museumImportService.getImport(id));
+    }
+
+    private ResponseEntity<MuseumImportReport> accepted(MuseumImportReport report) {
+        return ResponseEntity.accepted()
+            .location(URI.create("/api/admin/museums/import/" + report.getId()))
+            .body(report);
+    }
+
+    private User currentUser(org.springframework.security.core.userdetails.User user) {
+        return userRepository.findByEmail(user.getUsername())
+            .orElseThrow(() -> new UsernameNotFoundException("ユーザーが見つかりません"));
+    }
 }
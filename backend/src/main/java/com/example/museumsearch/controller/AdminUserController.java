@@ -3,6 +3,7 @@ package com.example.museumsearch.controller;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -45,10 +46,11 @@ public class AdminUserController {
 
     @GetMapping("/users/search")
     @PreAuthorize("hasRole('ADMIN')")
-    public Page<User> searchUsers(@RequestParam String keyword,
+    public Slice<User> searchUsers(@RequestParam String keyword,
                                 @RequestParam(defaultValue = "0") int page,
-                                @RequestParam(defaultValue = "10") int size) {
+                                @RequestParam(defaultValue = "10") int size,
+                                @RequestParam(defaultValue = "false") boolean slice) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("id").descending());
-        return userService.searchUsers(keyword, pageable);
+        return slice ? userService.sliceUsers(keyword, pageable) : userService.searchUsers(keyword, pageable);
     }
 }
@@ -1,6 +1,12 @@
 package com.example.museumsearch.controller;
 
+import com.example.museumsearch.cache.MuseumCatalogSnapshot;
+import com.example.museumsearch.dto.CursorPage;
 import com.example.museumsearch.dto.MuseumDTO;
+import com.example.museumsearch.dto.MuseumFilter;
+import com.example.museumsearch.dto.MuseumSearchResult;
+import com.example.museumsearch.dto.MuseumSuggestion;
+import com.example.museumsearch.dto.MuseumViewport;
 import com.example.museumsearch.mapper.MuseumMapper;
 import com.example.museumsearch.model.Museum;
 import com.example.museumsearch.model.MuseumStatus;
@@ -13,12 +19,18 @@ import com.example.museumsearch.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.YearMonth;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -31,6 +43,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -46,68 +59,185 @@ public class MuseumController {
     private final MuseumService museumService;
     private final MuseumMapper museumMapper;
     private final UserService userService;
+    private final MuseumCatalogSnapshot museumCatalogSnapshot;
 
     @GetMapping("/all")
-    public ResponseEntity<List<MuseumDTO>> getAllMuseums() {
-        List<MuseumDTO> museumDTOs = museumService.findAllMuseums()
-                .stream()
-                .map(museumMapper::toDTO)
-                .toList();
+    public ResponseEntity<byte[]> getAllMuseums(
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        MuseumCatalogSnapshot.Snapshot snapshot = museumCatalogSnapshot.current();
+        boolean gzip = MuseumCatalogSnapshot.acceptsGzip(acceptEncoding);
+        if (snapshot.matches(ifNoneMatch, gzip)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.etag(gzip))
+                    .cacheControl(CacheControl.noCache())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
 
-        return ResponseEntity.ok()
-                .header("Cache-Control", "no-store, no-cache, must-revalidate, max-age=0")
-                .header("Pragma", "no-cache")
-                .body(museumDTOs);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(snapshot.etag(gzip))
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return response.body(snapshot.body(gzip));
     }
 
     @GetMapping("/results")
-    public ResponseEntity<Page<MuseumDTO>> searchMuseums(
+    public ResponseEntity<Slice<MuseumDTO>> searchMuseums(
+        @RequestParam(required = false) String keyword,
+        @RequestParam(defaultValue = "false") boolean slice,
+        @PageableDefault(sort = "startDate", direction = Sort.Direction.ASC) Pageable pageable
+    ) {
+        return ResponseEntity.ok(search(keyword, slice, pageable));
+    }
+
+    @GetMapping(value = "/results", params = "facets=true")
+    public ResponseEntity<MuseumSearchResult> searchMuseumsWithFacets(
         @RequestParam(required = false) String keyword,
+        @RequestParam(defaultValue = "false") boolean slice,
         @PageableDefault(sort = "startDate", direction = Sort.Direction.ASC) Pageable pageable
     ) {
-        Page<Museum> results = museumService.searchMuseums(keyword, pageable);
-        Page<MuseumDTO> dtoPage = results.map(museumMapper::toDTO);
-        return ResponseEntity.ok(dtoPage);
+        return ResponseEntity.ok(new MuseumSearchResult(search(keyword, slice, pageable), museumService.getFacets(keyword)));
+    }
+
+    private Slice<MuseumDTO> search(String keyword, boolean slice, Pageable pageable) {
+        Slice<Museum> results = slice
+            ? museumService.sliceMuseums(keyword, pageable)
+            : museumService.searchMuseums(keyword, pageable);
+        return results.map(museumMapper::toDTO);
+    }
+
+    @GetMapping(value = "/results", params = "cursor")
+    public ResponseEntity<CursorPage<MuseumDTO>> scrollMuseums(
+        @RequestParam(required = false) String keyword,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "20") int size
+    ) {
+        return ResponseEntity.ok(museumService.scrollMuseums(keyword, cursor, size).map(museumMapper::toDTO));
+    }
+
+    @GetMapping("/filter")
+    public ResponseEntity<Page<MuseumDTO>> filterMuseums(
+        @RequestParam(required = false) String keyword,
+        @RequestParam(defaultValue = "") List<String> prefecture,
+        @RequestParam(defaultValue = "") List<String> category,
+        @RequestParam(defaultValue = "") List<MuseumStatus> status,
+        @RequestParam(defaultValue = "") List<String> imageProvider,
+        @RequestParam(defaultValue = "") List<YearMonth> month,
+        @RequestParam(defaultValue = "false") boolean running,
+        @PageableDefault(sort = "startDate", direction = Sort.Direction.ASC) Pageable pageable
+    ) {
+        MuseumFilter filter = MuseumFilter.builder()
+            .keyword(keyword)
+            .prefectures(prefecture)
+            .categories(category)
+            .statuses(status)
+            .imageProviders(imageProvider)
+            .months(month)
+            .running(running)
+            .build();
+        return ResponseEntity.ok(museumService.filterMuseums(filter, pageable).map(museumMapper::toDTO));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<MuseumSuggestion>> suggestMuseums(
+        @RequestParam String q,
+        @RequestParam(defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(museumService.suggestMuseums(q, limit));
     }
 
     @GetMapping("/prefecture/{prefecture}")
-    public ResponseEntity<Page<MuseumDTO>> filterMuseumByPrefecture(
+    public ResponseEntity<Slice<MuseumDTO>> filterMuseumByPrefecture(
         @PathVariable String prefecture,
+        @RequestParam(defaultValue = "false") boolean slice,
         @PageableDefault(sort = "startDate", direction = Sort.Direction.ASC) Pageable pageable
     ) {
-        Page<Museum> foundMuseums = museumRepository.findByPrefectureEqualsIgnoreCase(prefecture, pageable);
+        Slice<Museum> foundMuseums = slice
+            ? museumService.sliceMuseumsByPrefecture(prefecture, pageable)
+            : museumService.findMuseumsByPrefecture(prefecture, pageable);
 
-        Page<MuseumDTO> filterd = foundMuseums.map(museumMapper::toDTO);
+        Slice<MuseumDTO> filterd = foundMuseums.map(museumMapper::toDTO);
         return ResponseEntity.ok(filterd);
     }
 
+    @GetMapping(value = "/prefecture/{prefecture}", params = "cursor")
+    public ResponseEntity<CursorPage<MuseumDTO>> scrollMuseumsByPrefecture(
+        @PathVariable String prefecture,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "20") int size
+    ) {
+        return ResponseEntity.ok(museumService.scrollMuseumsByPrefecture(prefecture, cursor, size).map(museumMapper::toDTO));
+    }
+
     @GetMapping("/nearby")
     public ResponseEntity<List<MuseumDTO>> getNearbyMuseum(
-        @RequestParam(required = false) double lat, @RequestParam(required = false) double lon
+        @RequestParam(required = false) double lat, @RequestParam(required = false) double lon,
+        @RequestParam(required = false) Double radiusKm, @RequestParam(required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(museumService.getNearbyMuseums(lat, lon, radiusKm, limit));
+    }
+
+    @GetMapping("/{id}/nearby")
+    public ResponseEntity<List<MuseumDTO>> getNeighborMuseums(@PathVariable Long id) {
+        return ResponseEntity.ok(museumService.getNeighborMuseums(id));
+    }
+
+    @GetMapping("/viewport")
+    public ResponseEntity<MuseumViewport<MuseumDTO>> getViewport(
+        @RequestParam String bbox,
+        @RequestParam int zoom
     ) {
-        return ResponseEntity.ok(museumService.getNearbyMuseums(lat, lon));
+        return ResponseEntity.ok(museumService.getViewport(bbox, zoom).map(museumMapper::toDTO));
     }
 
     @GetMapping("/gardens/{category}")
-    public ResponseEntity<Page<MuseumDTO>> getGardens(
+    public ResponseEntity<Slice<MuseumDTO>> getGardens(
         @PathVariable String category,
+        @RequestParam(defaultValue = "false") boolean slice,
         @PageableDefault(sort = "startDate", direction = Sort.Direction.ASC) Pageable pageable
     ) {
-        Page<Museum> foundMuseums = museumRepository.findByCategoryContaining(category, pageable);
-        Page<MuseumDTO> dtoMuseums = foundMuseums.map(museumMapper::toDTO);
+        Slice<Museum> foundMuseums = slice
+            ? museumService.sliceMuseumsByCategory(category, pageable)
+            : museumService.findMuseumsByCategory(category, pageable);
+        Slice<MuseumDTO> dtoMuseums = foundMuseums.map(museumMapper::toDTO);
         return ResponseEntity.ok(dtoMuseums);
     }
 
+    @GetMapping(value = "/gardens/{category}", params = "cursor")
+    public ResponseEntity<CursorPage<MuseumDTO>> scrollGardens(
+        @PathVariable String category,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "20") int size
+    ) {
+        return ResponseEntity.ok(museumService.scrollMuseumsByCategory(category, cursor, size).map(museumMapper::toDTO));
+    }
+
     @GetMapping("/photos/{category}")
-    public ResponseEntity<Page<MuseumDTO>> getPhotos(
+    public ResponseEntity<Slice<MuseumDTO>> getPhotos(
         @PathVariable String category,
+        @RequestParam(defaultValue = "false") boolean slice,
         @PageableDefault(sort = "startDate", direction = Sort.Direction.ASC) Pageable pageable
     ) {
-        Page<Museum> foundMuseums = museumRepository.findByCategoryContaining(category, pageable);
-        Page<MuseumDTO> dtoMuseums = foundMuseums.map(museumMapper::toDTO);
+        Slice<Museum> foundMuseums = slice
+            ? museumService.sliceMuseumsByCategory(category, pageable)
+            : museumService.findMuseumsByCategory(category, pageable);
+        Slice<MuseumDTO> dtoMuseums = foundMuseums.map(museumMapper::toDTO);
         return ResponseEntity.ok(dtoMuseums);
     }
 
+    @GetMapping(value = "/photos/{category}", params = "cursor")
+    public ResponseEntity<CursorPage<MuseumDTO>> scrollPhotos(
+        @PathVariable String category,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "20") int size
+    ) {
+        return ResponseEntity.ok(museumService.scrollMuseumsByCategory(category, cursor, size).map(museumMapper::toDTO));
+    }
+
     @PostMapping
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     public ResponseEntity<MuseumDTO> createMuseum(
@@ -122,15 +252,13 @@ public class MuseumController {
         museum.updateCreatedBy(managedUser);
         museum.updateStatus(MuseumStatus.PENDING);
 
-        log.info("美術館を保存します: {}", museum);
-        Museum saved = museumRepository.save(museum);
+        Museum saved = museumService.createMuseum(museum);
         return ResponseEntity.ok(museumMapper.toDTO(saved));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<MuseumDTO> getMuseumById(@PathVariable Long id) {
-         Museum foundMuseum = museumService.findMuseumById(id);
-         return ResponseEntity.ok(museumMapper.toDTO(foundMuseum));
+         return ResponseEntity.ok(museumService.findMuseumDetail(id));
     }
 
     @PutMapping("/{id}")
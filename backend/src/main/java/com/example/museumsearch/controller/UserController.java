@@ -125,7 +125,7 @@ public class UserController {
                 throw new BadCredentialsException("パスワードが違います");
             }
 
-            String token = jwtProvider.generateToken(user.getEmail(), List.of("ROLE_" + user.getRoles()));
+            String token = jwtProvider.generateToken(user);
 
             return ResponseEntity.ok(
             new LoginResponse(token, new UserDTO(user.getId(), user.getUserName()))
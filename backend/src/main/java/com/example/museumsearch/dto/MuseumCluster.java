@@ -0,0 +1,12 @@
+package com.example.museumsearch.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class MuseumCluster {
+    private double latitude;
+    private double longitude;
+    private int count;
+}
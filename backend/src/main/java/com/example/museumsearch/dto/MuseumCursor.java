@@ -0,0 +1,48 @@
+package com.example.museumsearch.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.museumsearch.model.Museum;
+
+import lombok.Value;
+
+@Value
+public class MuseumCursor {
+
+    // 開始日で並べた先頭ページの位置。開始日が未設定の美術館は常に末尾に並ぶ
+    public static final MuseumCursor FIRST = new MuseumCursor(LocalDate.of(1, 1, 1), 0L);
+
+    LocalDate startDate;
+    Long id;
+
+    public static MuseumCursor after(Museum museum) {
+        return new MuseumCursor(museum.getStartDate(), museum.getId());
+    }
+
+    public static MuseumCursor decode(String token) {
+        if (token == null || token.isBlank()) return FIRST;
+
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf('|');
+            String date = decoded.substring(0, separator);
+            return new MuseumCursor(date.isEmpty() ? null : LocalDate.parse(date), Long.valueOf(decoded.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "不正なカーソルです: " + token);
+        }
+    }
+
+    public String encode() {
+        String raw = (startDate == null ? "" : startDate.toString()) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isUndated() {
+        return startDate == null;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.museumsearch.dto;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class MuseumFacets {
+    private Map<String, Long> prefectures;
+    private Map<String, Long> categories;
+    private long running;
+}
@@ -0,0 +1,32 @@
+package com.example.museumsearch.dto;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import com.example.museumsearch.model.MuseumStatus;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+@Value
+@Builder
+public class MuseumFilter {
+
+    @Singular
+    List<String> prefectures;
+    @Singular
+    List<String> categories;
+    @Singular
+    List<MuseumStatus> statuses;
+    @Singular
+    List<String> imageProviders;
+    @Singular
+    List<YearMonth> months;
+    boolean running;
+    String keyword;
+
+    public boolean hasKeyword() {
+        return keyword != null && !keyword.isBlank();
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.museumsearch.dto;
+
+public enum MuseumImportFormat {
+    CSV,
+    NDJSON;
+
+    // Content-Type で判定できなければファイル名の拡張子を見る。どちらでもなければ CSV とみなす
+    public static MuseumImportFormat of(String contentType, String filename) {
+        if (contentType != null && (contentType.startsWith("application/x-ndjson") || contentType.startsWith("application/jsonl"))) {
+            return NDJSON;
+        }
+        if (filename != null && (filename.endsWith(".ndjson") || filename.endsWith(".jsonl"))) {
+            return NDJSON;
+        }
+        return CSV;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.museumsearch.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class MuseumImportReport {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private String id;
+    private Status status;
+    private MuseumImportFormat format;
+    private long processedRows;
+    private long inserted;
+    private long skipped;
+    // 先頭から一定件数だけ保持する。全体の件数は skipped を見る
+    private List<RowError> errors;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String failure;
+
+    @Getter
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String message;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.museumsearch.dto;
+
+import org.springframework.data.domain.Slice;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class MuseumSearchResult {
+    private Slice<MuseumDTO> results;
+    private MuseumFacets facets;
+}
@@ -0,0 +1,17 @@
+package com.example.museumsearch.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class MuseumSuggestion {
+
+    public enum Type {
+        NAME,
+        EXHIBITION
+    }
+
+    private String text;
+    private Type type;
+}
@@ -0,0 +1,19 @@
+package com.example.museumsearch.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class MuseumViewport<T> {
+    private int zoom;
+    private List<MuseumCluster> clusters;
+    private List<T> museums;
+
+    public <R> MuseumViewport<R> map(Function<? super T, ? extends R> mapper) {
+        return new MuseumViewport<>(zoom, clusters, museums.stream().<R>map(mapper).toList());
+    }
+}
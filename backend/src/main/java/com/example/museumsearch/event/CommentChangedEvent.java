@@ -0,0 +1,30 @@
+package com.example.museumsearch.event;
+
+import com.example.museumsearch.model.Comment;
+
+import lombok.Value;
+
+@Value
+public class CommentChangedEvent {
+
+    public enum Type {
+        SAVED,
+        DELETED
+    }
+
+    Type type;
+    Long commentId;
+    Comment comment;
+
+    public static CommentChangedEvent saved(Comment comment) {
+        return new CommentChangedEvent(Type.SAVED, comment.getId(), comment);
+    }
+
+    public static CommentChangedEvent deleted(Long commentId) {
+        return new CommentChangedEvent(Type.DELETED, commentId, null);
+    }
+
+    public boolean isDeleted() {
+        return type == Type.DELETED;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.museumsearch.event;
+
+import lombok.Value;
+
+@Value
+public class MuseumCatalogLoadedEvent {
+    long inserted;
+    long updated;
+    long archived;
+    long elapsedMillis;
+}
@@ -0,0 +1,30 @@
+package com.example.museumsearch.event;
+
+import com.example.museumsearch.model.Museum;
+
+import lombok.Value;
+
+@Value
+public class MuseumChangedEvent {
+
+    public enum Type {
+        SAVED,
+        DELETED
+    }
+
+    Type type;
+    Long museumId;
+    Museum museum;
+
+    public static MuseumChangedEvent saved(Museum museum) {
+        return new MuseumChangedEvent(Type.SAVED, museum.getId(), museum);
+    }
+
+    public static MuseumChangedEvent deleted(Long museumId) {
+        return new MuseumChangedEvent(Type.DELETED, museumId, null);
+    }
+
+    public boolean isDeleted() {
+        return type == Type.DELETED;
+    }
+}
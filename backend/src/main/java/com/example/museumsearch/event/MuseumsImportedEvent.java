@@ -0,0 +1,13 @@
+package com.example.museumsearch.event;
+
+import java.util.List;
+
+import com.example.museumsearch.model.Museum;
+
+import lombok.Value;
+
+// 一括取り込みで追加された美術館。1バッチ分をまとめて通知し、各インデックスは差分として反映する
+@Value
+public class MuseumsImportedEvent {
+    List<Museum> museums;
+}
@@ -0,0 +1,28 @@
+package com.example.museumsearch.event;
+
+import lombok.Value;
+
+@Value
+public class UserChangedEvent {
+
+    public enum Type {
+        SAVED,
+        DELETED
+    }
+
+    Type type;
+    Long userId;
+    String email;
+
+    public static UserChangedEvent saved(Long userId, String email) {
+        return new UserChangedEvent(Type.SAVED, userId, email);
+    }
+
+    public static UserChangedEvent deleted(Long userId, String email) {
+        return new UserChangedEvent(Type.DELETED, userId, email);
+    }
+
+    public boolean isDeleted() {
+        return type == Type.DELETED;
+    }
+}
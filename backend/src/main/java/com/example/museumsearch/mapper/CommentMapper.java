@@ -1,5 +1,6 @@
 package com.example.museumsearch.mapper;
 
+import org.hibernate.Hibernate;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Named;
@@ -8,6 +9,8 @@ import com.example.museumsearch.dto.CommentDTO;
 import com.example.museumsearch.model.Comment;
 import com.example.museumsearch.model.Museum;
 
+import jakarta.persistence.EntityNotFoundException;
+
 @Mapper(componentModel = "spring")
 public interface CommentMapper {
 
@@ -26,10 +29,11 @@ public interface CommentMapper {
     default CommentDTO toDTO(Comment comment) {
         if (comment == null) return null;
 
+        Museum museum = availableMuseum(comment);
         return CommentDTO.builder()
             .id(comment.getId())
-            .museumId(comment.getMuseum().getId())
-            .museumName(comment.getMuseum().getName())
+            .museumId(museum != null ? museum.getId() : null)
+            .museumName(museum != null ? museum.getName() : null)
             .content(comment.getContent())
             .username(comment.getUsername())
             .displayName(comment.getDisplayName())
@@ -38,6 +42,18 @@ public interface CommentMapper {
             .build();
     };
 
+    // アーカイブ済みの美術館は遅延ロードの時点で見つからないので、関連がないものとして扱う
+    default Museum availableMuseum(Comment comment) {
+        Museum museum = comment.getMuseum();
+        if (museum == null || Hibernate.isInitialized(museum)) return museum;
+        try {
+            Hibernate.initialize(museum);
+            return museum;
+        } catch (EntityNotFoundException e) {
+            return null;
+        }
+    }
+
     @Named("mapMuseum")
     default Museum mapMuseum(Long museumId) {
         if (museumId == null) return null;
@@ -14,5 +14,11 @@ public interface MuseumMapper {
     MuseumDTO toDTO(Museum museum);
 
     @Mapping(target = "createdBy", ignore = true)
+    @Mapping(target = "nameNormalized", ignore = true)
+    @Mapping(target = "exhibitionNormalized", ignore = true)
+    @Mapping(target = "addressNormalized", ignore = true)
+    @Mapping(target = "descriptionNormalized", ignore = true)
+    @Mapping(target = "sourceKey", ignore = true)
+    @Mapping(target = "sourceHash", ignore = true)
     Museum toEntity(MuseumDTO museumDTO);
 }
@@ -2,6 +2,9 @@ package com.example.museumsearch.model;
 
 import java.time.LocalDateTime;
 
+import com.example.museumsearch.util.JapaneseTextNormalizer;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -26,6 +29,7 @@ public class Comment {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // アーカイブ済みの美術館は @SQLRestriction で読み込めない。DTO への変換側で扱う
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "museum_id")
     private Museum museum;
@@ -44,6 +48,14 @@ public class Comment {
 
     private String username;
 
+    @JsonIgnore
+    @Column(name = "content_normalized", length = 4000)
+    private String contentNormalized;
+
+    @JsonIgnore
+    @Column(name = "username_normalized", length = 400)
+    private String usernameNormalized;
+
     public Comment(Museum museum, String content, String username) {
         this.museum = museum;
         this.content = content;
@@ -58,13 +70,20 @@ public class Comment {
         this.updatedAt = updatedAt;
     }
 
+    public void normalizeSearchColumns() {
+        this.contentNormalized = JapaneseTextNormalizer.normalize(content);
+        this.usernameNormalized = JapaneseTextNormalizer.normalize(username);
+    }
+
     @PrePersist
     public void prepersist() {
         this.createdAt = LocalDateTime.now();
+        normalizeSearchColumns();
     }
 
     @PreUpdate
     public void preUpdate() {
         this.updatedAt = LocalDateTime.now();
+        normalizeSearchColumns();
     }
 }
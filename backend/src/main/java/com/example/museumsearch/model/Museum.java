@@ -2,6 +2,11 @@ package com.example.museumsearch.model;
 
 import java.time.LocalDate;
 
+import org.hibernate.annotations.SQLRestriction;
+
+import com.example.museumsearch.util.JapaneseTextNormalizer;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -9,8 +14,12 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -19,16 +28,23 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+// CSV から消えた美術館は ARCHIVED として行を残し、コメントや閲覧履歴の参照を保つ
 @Getter
 @Entity
-@Table(name = "museums")
+@SQLRestriction("status IS DISTINCT FROM 'ARCHIVED'")
+@Table(name = "museums", indexes = {
+    @Index(name = "idx_museums_start_date_id", columnList = "start_date, id"),
+    @Index(name = "idx_museums_prefecture_start_date_id", columnList = "prefecture, start_date, id")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Museum {
     
+    // IDENTITY だと INSERT をバッチにできないため、50件単位で採番するシーケンスを使う
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "museum_seq")
+    @SequenceGenerator(name = "museum_seq", sequenceName = "museum_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "名称は必須です")
@@ -105,6 +121,40 @@ public class Museum {
     @JoinColumn(name = "created_by_id")
     private User createdBy;
 
+    @JsonIgnore
+    @Column(name = "name_normalized", length = 400)
+    private String nameNormalized;
+
+    @JsonIgnore
+    @Column(name = "exhibition_normalized", length = 400)
+    private String exhibitionNormalized;
+
+    @JsonIgnore
+    @Column(name = "address_normalized", length = 800)
+    private String addressNormalized;
+
+    @JsonIgnore
+    @Column(name = "description_normalized", length = 6000)
+    private String descriptionNormalized;
+
+    // CSV 由来の行の識別キー (名称 + 展示名) と内容のハッシュ。差分同期に使う
+    @JsonIgnore
+    @Column(name = "source_key", length = 300)
+    private String sourceKey;
+
+    @JsonIgnore
+    @Column(name = "source_hash", length = 64)
+    private String sourceHash;
+
+    @PrePersist
+    @PreUpdate
+    public void normalizeSearchColumns() {
+        this.nameNormalized = JapaneseTextNormalizer.normalize(name);
+        this.exhibitionNormalized = JapaneseTextNormalizer.normalize(exhibition);
+        this.addressNormalized = JapaneseTextNormalizer.normalize(address);
+        this.descriptionNormalized = JapaneseTextNormalizer.normalize(description);
+    }
+
     public void updateName(String name) {
         this.name = name;
     }
@@ -188,4 +238,33 @@ public class Museum {
     public void updateCreatedBy(User createdBy) {
         this.createdBy = createdBy;
     }
+
+    public void updateSource(String sourceKey, String sourceHash) {
+        this.sourceKey = sourceKey;
+        this.sourceHash = sourceHash;
+    }
+
+    public void updateFromSource(Museum source) {
+        this.name = source.name;
+        this.address = source.address;
+        this.prefecture = source.prefecture;
+        this.phoneNumber = source.phoneNumber;
+        this.exhibition = source.exhibition;
+        this.imageProvider = source.imageProvider;
+        this.exhibitionImage = source.exhibitionImage;
+        this.museumUrl = source.museumUrl;
+        this.exhibitionUrl = source.exhibitionUrl;
+        this.startDate = source.startDate;
+        this.endDate = source.endDate;
+        this.description = source.description;
+        this.openingHours = source.openingHours;
+        this.closingDays = source.closingDays;
+        this.admissionFee = source.admissionFee;
+        this.access = source.access;
+        this.latitude = source.latitude;
+        this.longitude = source.longitude;
+        this.category = source.category;
+        this.sourceKey = source.sourceKey;
+        this.sourceHash = source.sourceHash;
+    }
 }
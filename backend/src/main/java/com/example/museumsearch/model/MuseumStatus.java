@@ -3,5 +3,6 @@ package com.example.museumsearch.model;
 public enum MuseumStatus {
     PENDING,
     APPROVED,
-    REJECTED
+    REJECTED,
+    ARCHIVED
 }
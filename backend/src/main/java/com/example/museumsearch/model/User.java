@@ -1,5 +1,11 @@
 package com.example.museumsearch.model;
 
+import java.util.Objects;
+
+import org.hibernate.annotations.ColumnDefault;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -45,11 +51,19 @@ public class User {
     @Column(nullable = false)
     private Role roles = Role.USER;
 
+    // JWT の ver クレームと照合する。認証情報が変わるたびに進めて既存トークンを失効させる
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion;
+
     public void updateEmail(String email) {
+        if (!Objects.equals(email, this.email)) revokeTokens();
         this.email = email;
     }
 
     public void updatePassword(String password) {
+        revokeTokens();
         this.password = password;
     }
 
@@ -62,6 +76,11 @@ public class User {
     }
 
     public void updateRoles(Role roles) {
+        if (roles != this.roles) revokeTokens();
         this.roles = roles;
     }
+
+    private void revokeTokens() {
+        if (id != null) tokenVersion++;
+    }
 }
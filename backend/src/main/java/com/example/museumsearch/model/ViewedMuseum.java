@@ -2,6 +2,9 @@ package com.example.museumsearch.model;
 
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.NotFound;
+import org.hibernate.annotations.NotFoundAction;
+
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
@@ -19,7 +22,9 @@ public class ViewedMuseum {
     @ManyToOne
     private User user;
 
+    // アーカイブ済みの美術館は null として読み込む
     @ManyToOne
+    @NotFound(action = NotFoundAction.IGNORE)
     private Museum museum;
 
     private LocalDateTime viewedAt;
@@ -0,0 +1,6 @@
+package com.example.museumsearch.paging;
+
+public enum CountMode {
+    EXACT,
+    ESTIMATE
+}
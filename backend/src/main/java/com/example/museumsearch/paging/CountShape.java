@@ -0,0 +1,47 @@
+package com.example.museumsearch.paging;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+import lombok.Getter;
+
+@Getter
+public enum CountShape {
+    MUSEUMS_BY_PREFECTURE("SELECT 1 FROM museums WHERE upper(prefecture) = upper(?) AND status IS DISTINCT FROM 'ARCHIVED'", false, Source.MUSEUM),
+    MUSEUMS_BY_CATEGORY("SELECT 1 FROM museums WHERE category LIKE ? AND status IS DISTINCT FROM 'ARCHIVED'", true, Source.MUSEUM),
+    MUSEUMS_BY_KEYWORD("SELECT 1 FROM museums WHERE (name_normalized LIKE ? OR exhibition_normalized LIKE ? OR address_normalized LIKE ? OR description_normalized LIKE ?) AND status IS DISTINCT FROM 'ARCHIVED'", true, Source.MUSEUM),
+    COMMENTS("SELECT 1 FROM comments", false, Source.COMMENT),
+    COMMENTS_BY_KEYWORD("SELECT 1 FROM comments c JOIN museums m ON m.id = c.museum_id AND m.status IS DISTINCT FROM 'ARCHIVED' WHERE c.username_normalized LIKE ? OR c.content_normalized LIKE ? OR m.name_normalized LIKE ?", true, Source.COMMENT, Source.MUSEUM),
+    USERS("SELECT 1 FROM users", false, Source.USER),
+    USERS_BY_KEYWORD("SELECT 1 FROM users WHERE email LIKE ? OR user_name LIKE ?", true, Source.USER);
+
+    public enum Source {
+        MUSEUM,
+        COMMENT,
+        USER
+    }
+
+    // 概算モードでEXPLAINにかけるSQL。パラメータはすべて同じフィルタ値で埋める。
+    // 正確な件数と揃えるため、Museum の @SQLRestriction と同じ条件でアーカイブ済みを除く
+    private final String estimateSql;
+    private final boolean containsMatch;
+    private final Set<Source> sources;
+
+    CountShape(String estimateSql, boolean containsMatch, Source... sources) {
+        this.estimateSql = estimateSql;
+        this.containsMatch = containsMatch;
+        this.sources = EnumSet.copyOf(Arrays.asList(sources));
+    }
+
+    public boolean dependsOn(Source source) {
+        return sources.contains(source);
+    }
+
+    Object[] estimateParameters(String filter) {
+        int count = (int) estimateSql.chars().filter(c -> c == '?').count();
+        Object[] parameters = new Object[count];
+        Arrays.fill(parameters, containsMatch ? "%" + filter + "%" : filter);
+        return parameters;
+    }
+}
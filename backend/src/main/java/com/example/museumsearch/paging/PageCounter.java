@@ -0,0 +1,138 @@
+package com.example.museumsearch.paging;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.example.museumsearch.event.CommentChangedEvent;
+import com.example.museumsearch.event.MuseumCatalogLoadedEvent;
+import com.example.museumsearch.event.MuseumChangedEvent;
+import com.example.museumsearch.event.MuseumsImportedEvent;
+import com.example.museumsearch.event.UserChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PageCounter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final Cache<CountKey, Long> counts = Caffeine.newBuilder()
+        .maximumSize(10_000)
+        .expireAfterWrite(Duration.ofMinutes(10))
+        .build();
+    private final AtomicLong generation = new AtomicLong();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Value("${paging.count-mode:exact}")
+    private CountMode countMode;
+
+    public <T> Page<T> toPage(Slice<T> slice, CountShape shape, String filter, LongSupplier exactCount) {
+        List<T> content = slice.getContent();
+        Pageable pageable = slice.getPageable();
+        long seen = pageable.isPaged() ? pageable.getOffset() + content.size() : content.size();
+
+        if (!slice.hasNext() && (!content.isEmpty() || !pageable.isPaged() || pageable.getOffset() == 0)) {
+            return new PageImpl<>(content, pageable, seen);
+        }
+
+        long total = count(shape, filter == null ? "" : filter, exactCount);
+        if (content.isEmpty()) return new PageImpl<>(content, pageable, total);
+        return new PageImpl<>(content, pageable, Math.max(total, slice.hasNext() ? seen + 1 : seen));
+    }
+
+    @EventListener({ MuseumCatalogLoadedEvent.class, MuseumsImportedEvent.class })
+    public void onCatalogLoaded() {
+        evict(CountShape.Source.MUSEUM);
+    }
+
+    @EventListener
+    public void onMuseumChanged(MuseumChangedEvent event) {
+        evict(CountShape.Source.MUSEUM);
+    }
+
+    @EventListener
+    public void onCommentChanged(CommentChangedEvent event) {
+        evict(CountShape.Source.COMMENT);
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        evict(CountShape.Source.USER);
+    }
+
+    private long count(CountShape shape, String filter, LongSupplier exactCount) {
+        CountKey key = new CountKey(shape, filter);
+        Long cached = counts.getIfPresent(key);
+        if (cached != null) return cached;
+
+        long observedGeneration = generation.get();
+        long total = countMode == CountMode.ESTIMATE ? estimate(shape, filter, exactCount) : exactCount.getAsLong();
+        // 世代の確認と格納は破棄と排他にし、確認後に破棄された古い件数を残さない
+        lock.readLock().lock();
+        try {
+            if (generation.get() == observedGeneration) {
+                counts.put(key, total);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return total;
+    }
+
+    private long estimate(CountShape shape, String filter, LongSupplier exactCount) {
+        try {
+            String plan = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + shape.getEstimateSql(), String.class,
+                shape.estimateParameters(filter));
+            JsonNode rows = objectMapper.readTree(plan).path(0).path("Plan").path("Plan Rows");
+            if (rows.isNumber()) return rows.asLong();
+            log.warn("実行計画から件数を取得できません: shape={}", shape);
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("件数の概算に失敗したため、正確な件数を取得します: shape={}, {}", shape, e.getMessage());
+        }
+        return exactCount.getAsLong();
+    }
+
+    private void evict(CountShape.Source source) {
+        lock.writeLock().lock();
+        try {
+            generation.incrementAndGet();
+            counts.asMap().keySet().removeIf(key -> key.getShape().dependsOn(source));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class CountKey {
+        private final CountShape shape;
+        private final String filter;
+    }
+}
@@ -4,6 +4,7 @@ import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -20,9 +21,14 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     @NonNull
     Page<Comment> findAll(@NonNull Pageable pageable);
 
-    @Query("SELECT c FROM Comment c WHERE c.username LIKE %:keyword% OR c.content LIKE %:keyword%")
+    Slice<Comment> findAllBy(Pageable pageable);
+
+    @Query("SELECT c FROM Comment c WHERE c.usernameNormalized LIKE %:keyword% OR c.contentNormalized LIKE %:keyword%")
     List<Comment> searchByUsernameOrContent(@Param("keyword") String keyword);
 
-    @Query("SELECT c FROM Comment c WHERE c.username LIKE %:keyword% OR c.content LIKE %:keyword% OR c.museum.name LIKE %:keyword%")
-    Page<Comment> searchByKeyword(@Param("keyword") String keyword, Pageable pageable);
+    @Query("SELECT c FROM Comment c WHERE c.usernameNormalized LIKE %:keyword% OR c.contentNormalized LIKE %:keyword% OR c.museum.nameNormalized LIKE %:keyword%")
+    Slice<Comment> searchByKeyword(@Param("keyword") String keyword, Pageable pageable);
+
+    @Query("SELECT COUNT(c) FROM Comment c WHERE c.usernameNormalized LIKE %:keyword% OR c.contentNormalized LIKE %:keyword% OR c.museum.nameNormalized LIKE %:keyword%")
+    long countByKeyword(@Param("keyword") String keyword);
 }
@@ -1,10 +1,15 @@
 package com.example.museumsearch.repository;
 
+import java.time.LocalDate;
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.museumsearch.model.Museum;
@@ -17,9 +22,48 @@ public interface MuseumRepository extends JpaRepository<Museum, Long>{
     List<Museum> findByCreatedByIsNotNullAndCreatedBy(User user);
     boolean existsByName(String name);
     boolean existsByNameAndExhibition(String name, String exhibition);
-    Page<Museum> findByCategoryContaining(String name, Pageable pageable);
-    Page<Museum> findByPrefectureEqualsIgnoreCase(String address, Pageable pageable);
+    Slice<Museum> findByCategoryContaining(String name, Pageable pageable);
+    long countByCategoryContaining(String name);
+    Slice<Museum> findByPrefectureEqualsIgnoreCase(String address, Pageable pageable);
+    long countByPrefectureEqualsIgnoreCase(String address);
     Page<Museum> findByNameContainingIgnoreCaseOrExhibitionContainingIgnoreCaseOrAddressContainingIgnoreCase(
         String name, String exihibition, String address, Pageable pageable
     );
+
+    @Query("SELECT m FROM Museum m WHERE m.nameNormalized LIKE %:keyword% OR m.exhibitionNormalized LIKE %:keyword% OR m.addressNormalized LIKE %:keyword% OR m.descriptionNormalized LIKE %:keyword%")
+    Slice<Museum> searchByTrigram(@Param("keyword") String keyword, Pageable pageable);
+
+    @Query("SELECT COUNT(m) FROM Museum m WHERE m.nameNormalized LIKE %:keyword% OR m.exhibitionNormalized LIKE %:keyword% OR m.addressNormalized LIKE %:keyword% OR m.descriptionNormalized LIKE %:keyword%")
+    long countByTrigram(@Param("keyword") String keyword);
+
+    @Query("SELECT m.id FROM Museum m WHERE m.nameNormalized LIKE %:keyword% OR m.exhibitionNormalized LIKE %:keyword% OR m.addressNormalized LIKE %:keyword% OR m.descriptionNormalized LIKE %:keyword%")
+    List<Long> searchIdsByTrigram(@Param("keyword") String keyword);
+
+    // cube の <-> は地心からの直線距離で、大圏距離と順序が一致するため GiST の近傍探索をそのまま使える
+    @Query(value = "SELECT m.id FROM museums m WHERE m.latitude IS NOT NULL AND m.longitude IS NOT NULL AND m.status IS DISTINCT FROM 'ARCHIVED' ORDER BY ll_to_earth(m.latitude, m.longitude) <-> ll_to_earth(:lat, :lon) LIMIT :limit", nativeQuery = true)
+    List<Long> findNearestIds(@Param("lat") double lat, @Param("lon") double lon, @Param("limit") int limit);
+
+    @Query(value = "SELECT m.id FROM museums m WHERE earth_box(ll_to_earth(:lat, :lon), :radiusMeters) @> ll_to_earth(m.latitude, m.longitude) AND earth_distance(ll_to_earth(:lat, :lon), ll_to_earth(m.latitude, m.longitude)) <= :radiusMeters AND m.status IS DISTINCT FROM 'ARCHIVED' ORDER BY ll_to_earth(m.latitude, m.longitude) <-> ll_to_earth(:lat, :lon) LIMIT :limit", nativeQuery = true)
+    List<Long> findNearestIdsWithin(@Param("lat") double lat, @Param("lon") double lon, @Param("radiusMeters") double radiusMeters, @Param("limit") int limit);
+
+    // 行値の比較にすると (prefecture, start_date, id) の索引を続きから1回の範囲走査で読める
+    @Query("SELECT m FROM Museum m WHERE m.prefecture = :prefecture AND m.startDate IS NOT NULL AND (m.startDate, m.id) > (:startDate, :id) ORDER BY m.startDate ASC, m.id ASC")
+    List<Museum> findByPrefectureAfter(@Param("prefecture") String prefecture, @Param("startDate") LocalDate startDate, @Param("id") Long id, Limit limit);
+
+    @Query("SELECT m FROM Museum m WHERE m.prefecture = :prefecture AND m.startDate IS NULL AND m.id > :id ORDER BY m.id ASC")
+    List<Museum> findUndatedByPrefectureAfter(@Param("prefecture") String prefecture, @Param("id") Long id, Limit limit);
+
+    // 「美術館・庭園」のような複合カテゴリも拾うため部分一致のまま。(start_date, id) の索引を続きから読みつつ
+    // カテゴリで絞るので、1ページの費用は前方の件数ではなく該当カテゴリの密度で決まる
+    @Query("SELECT m FROM Museum m WHERE m.category LIKE %:category% AND m.startDate IS NOT NULL AND (m.startDate, m.id) > (:startDate, :id) ORDER BY m.startDate ASC, m.id ASC")
+    List<Museum> findByCategoryAfter(@Param("category") String category, @Param("startDate") LocalDate startDate, @Param("id") Long id, Limit limit);
+
+    @Query("SELECT m FROM Museum m WHERE m.category LIKE %:category% AND m.startDate IS NULL AND m.id > :id ORDER BY m.id ASC")
+    List<Museum> findUndatedByCategoryAfter(@Param("category") String category, @Param("id") Long id, Limit limit);
+
+    @Query("SELECT m FROM Museum m WHERE (m.nameNormalized LIKE %:keyword% OR m.exhibitionNormalized LIKE %:keyword% OR m.addressNormalized LIKE %:keyword% OR m.descriptionNormalized LIKE %:keyword%) AND m.startDate IS NOT NULL AND (m.startDate, m.id) > (:startDate, :id) ORDER BY m.startDate ASC, m.id ASC")
+    List<Museum> searchByTrigramAfter(@Param("keyword") String keyword, @Param("startDate") LocalDate startDate, @Param("id") Long id, Limit limit);
+
+    @Query("SELECT m FROM Museum m WHERE (m.nameNormalized LIKE %:keyword% OR m.exhibitionNormalized LIKE %:keyword% OR m.addressNormalized LIKE %:keyword% OR m.descriptionNormalized LIKE %:keyword%) AND m.startDate IS NULL AND m.id > :id ORDER BY m.id ASC")
+    List<Museum> searchUndatedByTrigramAfter(@Param("keyword") String keyword, @Param("id") Long id, Limit limit);
 }
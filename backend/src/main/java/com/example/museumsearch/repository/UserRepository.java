@@ -1,9 +1,10 @@
 package com.example.museumsearch.repository;
 
+import java.util.List;
 import java.util.Optional;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -17,5 +18,16 @@ public interface UserRepository extends JpaRepository<User, Long>{
     Optional<User> findByUserName(String userName);
 
     @Query("SELECT u FROM User u WHERE u.email LIKE %:keyword% OR u.userName LIKE %:keyword%")
-    Page<User> searchByKeyword(String keyword, Pageable pageable);
+    Slice<User> searchByKeyword(String keyword, Pageable pageable);
+
+    @Query("SELECT COUNT(u) FROM User u WHERE u.email LIKE %:keyword% OR u.userName LIKE %:keyword%")
+    long countByKeyword(String keyword);
+
+    Slice<User> findAllBy(Pageable pageable);
+
+    @Query("SELECT u.id, u.tokenVersion FROM User u")
+    List<Object[]> findAllTokenVersions();
+
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Optional<Integer> findTokenVersionById(Long id);
 }
@@ -0,0 +1,123 @@
+package com.example.museumsearch.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.museumsearch.util.GeoDistance;
+
+// 緯度経度を一定幅のセルに分け、セルごとの CoordinateStore を近い順に広げて探す。
+// スレッドセーフではないので、呼び出し側でロックするか単一スレッドから使う
+class CoordinateGrid {
+
+    // 約11km四方のセル。国内の美術館密度なら数リング以内で近傍が揃う
+    static final double CELL_DEGREES = 0.1;
+
+    private final DistanceKernel kernel;
+    private final Map<Long, Long> cellByMuseum = new HashMap<>();
+    private final Map<Long, CoordinateStore> cells = new HashMap<>();
+    private final CoordinateStore all;
+
+    CoordinateGrid(DistanceKernel kernel) {
+        this.kernel = kernel;
+        this.all = new CoordinateStore(kernel, 1024);
+    }
+
+    int size() {
+        return all.size();
+    }
+
+    void clear() {
+        cellByMuseum.keySet().forEach(all::remove);
+        cellByMuseum.clear();
+        cells.clear();
+    }
+
+    void add(long id, double latitude, double longitude) {
+        remove(id);
+        long key = cellKey(toCell(latitude), toCell(longitude));
+        cells.computeIfAbsent(key, k -> new CoordinateStore(kernel, 4)).add(id, latitude, longitude);
+        all.add(id, latitude, longitude);
+        cellByMuseum.put(id, key);
+    }
+
+    void remove(long id) {
+        Long key = cellByMuseum.remove(id);
+        if (key == null) return;
+
+        CoordinateStore cell = cells.get(key);
+        cell.remove(id);
+        if (cell.isEmpty()) cells.remove(key);
+        all.remove(id);
+    }
+
+    List<MuseumGeoIndex.Neighbor> nearest(double lat, double lon, Double radiusKm, Integer limit) {
+        double maxDistance = radiusKm == null ? Double.POSITIVE_INFINITY : radiusKm;
+        NearestCollector collector = new NearestCollector(limit == null ? Integer.MAX_VALUE : limit, maxDistance);
+        CoordinateStore.Query query = new CoordinateStore.Query(lat, lon);
+
+        if (limit == null && ringCellsWithin(lat, maxDistance) >= cells.size()) {
+            all.collect(query, collector);
+            return collector.toNeighbors();
+        }
+
+        int latCell = toCell(lat);
+        int lonCell = toCell(lon);
+        int visited = 0;
+        for (int ring = 0; visited < all.size(); ring++) {
+            // データから遠い地点や極の近くでは距離の下限が伸びず打ち切れない。
+            // 見るセル数が実在するセル数を超えたら全件の一括計算に切り替える
+            if ((2L * ring + 1) * (2L * ring + 1) > cells.size()) {
+                collector = new NearestCollector(limit == null ? Integer.MAX_VALUE : limit, maxDistance);
+                all.collect(query, collector);
+                break;
+            }
+            for (CoordinateStore cell : ring(latCell, lonCell, ring)) {
+                cell.collect(query, collector);
+                visited += cell.size();
+            }
+            if (minDistanceBeyond(lat, ring) > collector.thresholdKm()) break;
+        }
+        return collector.toNeighbors();
+    }
+
+    // 半径を覆うのに必要なセル数の概算。実在するセル数を超えるなら全件を一括計算した方が安い
+    private double ringCellsWithin(double lat, double radiusKm) {
+        if (Double.isInfinite(radiusKm)) return Double.POSITIVE_INFINITY;
+        double cellKm = Math.toRadians(CELL_DEGREES) * GeoDistance.EARTH_RADIUS_KM * Math.max(Math.cos(Math.toRadians(lat)), 0.01);
+        double rings = Math.ceil(radiusKm / cellKm) + 1;
+        return (2 * rings + 1) * (2 * rings + 1);
+    }
+
+    private List<CoordinateStore> ring(int latCell, int lonCell, int ring) {
+        List<CoordinateStore> result = new ArrayList<>();
+        for (int dLat = -ring; dLat <= ring; dLat++) {
+            int step = Math.abs(dLat) == ring ? 1 : Math.max(2 * ring, 1);
+            for (int dLon = -ring; dLon <= ring; dLon += step) {
+                CoordinateStore cell = cells.get(cellKey(latCell + dLat, lonCell + dLon));
+                if (cell != null) result.add(cell);
+            }
+        }
+        return result;
+    }
+
+    // ring より外側のセルに含まれる点までの距離の下限。緯度差・経度差のどちらかが ring セル分以上離れる
+    private double minDistanceBeyond(double lat, int ring) {
+        double gapRad = Math.toRadians(ring * CELL_DEGREES);
+        double latitudeBound = GeoDistance.EARTH_RADIUS_KM * gapRad;
+
+        double maxLatitudeRad = Math.toRadians(Math.min(90, Math.abs(lat) + (ring + 2) * CELL_DEGREES));
+        double longitudeBound = 2 * GeoDistance.EARTH_RADIUS_KM
+            * Math.asin(Math.cos(maxLatitudeRad) * Math.sin(Math.min(gapRad, Math.PI) / 2));
+        return Math.min(latitudeBound, longitudeBound);
+    }
+
+    static int toCell(double degrees) {
+        return (int) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    static long cellKey(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xffffffffL);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.museumsearch.search;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// 座標を単位球上の (x, y, z) として列ごとの配列に保持し、距離計算をまとめて行う
+class CoordinateStore {
+
+    private final DistanceKernel kernel;
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private long[] ids;
+    private double[] x;
+    private double[] y;
+    private double[] z;
+    private int size;
+
+    CoordinateStore(DistanceKernel kernel, int initialCapacity) {
+        this.kernel = kernel;
+        this.ids = new long[initialCapacity];
+        this.x = new double[initialCapacity];
+        this.y = new double[initialCapacity];
+        this.z = new double[initialCapacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void add(long id, double latitude, double longitude) {
+        remove(id);
+        if (size == ids.length) grow();
+
+        double latRad = Math.toRadians(latitude);
+        double lonRad = Math.toRadians(longitude);
+        double cosLat = Math.cos(latRad);
+        ids[size] = id;
+        x[size] = cosLat * Math.cos(lonRad);
+        y[size] = cosLat * Math.sin(lonRad);
+        z[size] = Math.sin(latRad);
+        slots.put(id, size);
+        size++;
+    }
+
+    // 末尾の要素を空いた位置に移して詰める
+    void remove(long id) {
+        Integer slot = slots.remove(id);
+        if (slot == null) return;
+
+        int last = --size;
+        if (slot != last) {
+            ids[slot] = ids[last];
+            x[slot] = x[last];
+            y[slot] = y[last];
+            z[slot] = z[last];
+            slots.put(ids[slot], slot);
+        }
+    }
+
+    void collect(Query query, NearestCollector collector) {
+        if (size == 0) return;
+
+        double[] chordSquared = new double[size];
+        kernel.chordSquared(query.x, query.y, query.z, x, y, z, size, chordSquared);
+        for (int i = 0; i < size; i++) {
+            collector.offer(chordSquared[i], ids[i]);
+        }
+    }
+
+    private void grow() {
+        int capacity = Math.max(4, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        z = Arrays.copyOf(z, capacity);
+    }
+
+    static final class Query {
+        private final double x;
+        private final double y;
+        private final double z;
+
+        Query(double latitude, double longitude) {
+            double latRad = Math.toRadians(latitude);
+            double lonRad = Math.toRadians(longitude);
+            double cosLat = Math.cos(latRad);
+            this.x = cosLat * Math.cos(lonRad);
+            this.y = cosLat * Math.sin(lonRad);
+            this.z = Math.sin(latRad);
+        }
+
+        double chordSquared(Query other) {
+            double dx = x - other.x;
+            double dy = y - other.y;
+            double dz = z - other.z;
+            return dx * dx + dy * dy + dz * dz;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.museumsearch.search;
+
+// 単位球上の座標 (x, y, z) との弦長の二乗を一括計算する。haversine の sin²(θ/2) は弦長² / 4 に等しい
+interface DistanceKernel {
+
+    void chordSquared(double qx, double qy, double qz, double[] x, double[] y, double[] z, int length, double[] out);
+}
@@ -0,0 +1,37 @@
+package com.example.museumsearch.search;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+final class DistanceKernels {
+
+    private static final String VECTOR_KERNEL = "com.example.museumsearch.search.VectorDistanceKernel";
+    private static final DistanceKernel SELECTED = select();
+
+    private DistanceKernels() {
+    }
+
+    static DistanceKernel get() {
+        return SELECTED;
+    }
+
+    // Vector API 版は vector-api プロファイルでビルドし、--add-modules jdk.incubator.vector で起動したときだけ使う。
+    // どちらかが欠けていればスカラー実装に切り替える
+    private static DistanceKernel select() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            log.info("jdk.incubator.vector が読み込まれていないため、スカラー実装で距離を計算します");
+            return new ScalarDistanceKernel();
+        }
+        try {
+            DistanceKernel kernel = (DistanceKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+            log.info("距離計算にVector APIを使用します: {}", kernel);
+            return kernel;
+        } catch (ClassNotFoundException e) {
+            log.info("vector-api プロファイルでビルドされていないため、スカラー実装で距離を計算します");
+            return new ScalarDistanceKernel();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            log.warn("Vector APIを利用できないため、スカラー実装で距離を計算します: {}", e.getMessage());
+            return new ScalarDistanceKernel();
+        }
+    }
+}
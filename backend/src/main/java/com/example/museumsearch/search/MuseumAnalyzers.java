@@ -0,0 +1,62 @@
+package com.example.museumsearch.search;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.cjk.CJKBigramFilter;
+import org.apache.lucene.analysis.cjk.CJKWidthFilter;
+import org.apache.lucene.analysis.core.KeywordTokenizer;
+import org.apache.lucene.analysis.ja.JapaneseAnalyzer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+
+final class MuseumAnalyzers {
+
+    static final String BIGRAM_SUFFIX = "_bigram";
+
+    private MuseumAnalyzers() {}
+
+    static Analyzer morphological() {
+        return new JapaneseAnalyzer();
+    }
+
+    // インデックス側はユニグラムも重ねて出力し、1文字のキーワードでもヒットするようにする
+    static Analyzer bigram(boolean outputUnigrams) {
+        return new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                Tokenizer tokenizer = new StandardTokenizer();
+                TokenStream stream = new CJKWidthFilter(tokenizer);
+                stream = new LowerCaseFilter(stream);
+                stream = new CJKBigramFilter(stream, CJKBigramFilter.HAN | CJKBigramFilter.HIRAGANA
+                        | CJKBigramFilter.KATAKANA | CJKBigramFilter.HANGUL, outputUnigrams);
+                return new TokenStreamComponents(tokenizer, stream);
+            }
+        };
+    }
+
+    static Analyzer keyword() {
+        return new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                Tokenizer tokenizer = new KeywordTokenizer();
+                TokenStream stream = new CJKWidthFilter(tokenizer);
+                stream = new LowerCaseFilter(stream);
+                return new TokenStreamComponents(tokenizer, stream);
+            }
+        };
+    }
+
+    static Analyzer indexAnalyzer(Iterable<String> textFields) {
+        Analyzer bigram = bigram(true);
+        Map<String, Analyzer> perField = new HashMap<>();
+        for (String field : textFields) {
+            perField.put(field + BIGRAM_SUFFIX, bigram);
+        }
+        return new PerFieldAnalyzerWrapper(morphological(), perField);
+    }
+}
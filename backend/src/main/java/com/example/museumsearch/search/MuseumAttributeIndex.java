@@ -0,0 +1,402 @@
+package com.example.museumsearch.search;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.museumsearch.dto.MuseumFacets;
+import com.example.museumsearch.dto.MuseumFilter;
+import com.example.museumsearch.event.MuseumCatalogLoadedEvent;
+import com.example.museumsearch.event.MuseumChangedEvent;
+import com.example.museumsearch.event.MuseumsImportedEvent;
+import com.example.museumsearch.model.Museum;
+import com.example.museumsearch.model.MuseumStatus;
+import com.example.museumsearch.repository.MuseumRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MuseumAttributeIndex {
+
+    private static final String CATEGORY_SEPARATOR = "・";
+    // 該当件数が全体のこの割合より少なければ、並び順を走査せず該当分だけを並べ替える
+    private static final int SPARSE_RATIO = 8;
+    private static final int MAX_CACHED_ORDERS = 16;
+
+    private final MuseumRepository museumRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Attributes> attributes = new HashMap<>();
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final Map<String, RoaringBitmap> prefectures = new HashMap<>();
+    private final Map<String, RoaringBitmap> categories = new HashMap<>();
+    private final Map<MuseumStatus, RoaringBitmap> statuses = new EnumMap<>(MuseumStatus.class);
+    private final Map<String, RoaringBitmap> imageProviders = new HashMap<>();
+    // 開始日・終了日ごとの美術館。会期の判定はすべて activeBetween で行う
+    private final NavigableMap<LocalDate, RoaringBitmap> starts = new TreeMap<>();
+    private final NavigableMap<LocalDate, RoaringBitmap> ends = new TreeMap<>();
+
+    // 並び順ごとの全件の順序と、当日開催中の集合。どちらも更新のたびに捨てて次の参照で作り直す
+    private final Map<Sort, int[]> orders = new ConcurrentHashMap<>();
+    private volatile Running running;
+
+    @EventListener(MuseumCatalogLoadedEvent.class)
+    public void load() {
+        List<Museum> museums = museumRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            attributes.clear();
+            all.clear();
+            prefectures.clear();
+            categories.clear();
+            statuses.clear();
+            imageProviders.clear();
+            starts.clear();
+            ends.clear();
+            changed();
+            for (Museum museum : museums) {
+                add(Attributes.of(museum));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("属性インデックスを構築しました: {}件", museums.size());
+    }
+
+    @EventListener
+    public void onMuseumChanged(MuseumChangedEvent event) {
+        int id = toIndexId(event.getMuseumId());
+        lock.writeLock().lock();
+        try {
+            Attributes previous = attributes.remove(id);
+            if (previous != null) remove(previous);
+            if (!event.isDeleted()) add(Attributes.of(event.getMuseum()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onMuseumsImported(MuseumsImportedEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (Museum museum : event.getMuseums()) {
+                Attributes previous = attributes.remove(toIndexId(museum.getId()));
+                if (previous != null) remove(previous);
+                add(Attributes.of(museum));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public RoaringBitmap filter(MuseumFilter filter, Collection<Long> keywordHits) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = keywordHits == null ? all.clone() : RoaringBitmap.and(all, toBitmap(keywordHits));
+            retainAny(result, prefectures, filter.getPrefectures());
+            retainAny(result, categories, filter.getCategories());
+            retainAny(result, statuses, filter.getStatuses());
+            retainAny(result, imageProviders, filter.getImageProviders());
+            retainMonths(result, filter.getMonths());
+            if (filter.isRunning()) result.and(runningOn(LocalDate.now()));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 絞り込みがなければ並び順の配列をそのまま切り出し、十分多ければ並び順を先頭から走査して上位だけを拾う
+    public Page<Long> page(RoaringBitmap ids, Pageable pageable) {
+        Comparator<Attributes> comparator = toComparator(pageable.getSort());
+        lock.readLock().lock();
+        try {
+            RoaringBitmap hits = RoaringBitmap.and(ids, all);
+            int total = hits.getCardinality();
+            long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+            int size = pageable.isPaged() ? pageable.getPageSize() : total;
+            if (offset >= total) return new PageImpl<>(List.of(), pageable, total);
+
+            List<Long> content;
+            if ((long) total * SPARSE_RATIO < all.getCardinality()) {
+                content = sortHits(hits, comparator, offset, size);
+            } else {
+                int[] order = orderOf(pageable.getSort(), comparator);
+                content = total == all.getCardinality()
+                    ? slice(order, offset, size)
+                    : scan(order, hits, offset, size);
+            }
+            return new PageImpl<>(content, pageable, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Long> sortHits(RoaringBitmap hits, Comparator<Attributes> comparator, long offset, int size) {
+        List<Attributes> targets = new ArrayList<>(hits.getCardinality());
+        hits.forEach((int id) -> targets.add(attributes.get(id)));
+        targets.sort(comparator);
+        return targets.stream()
+            .skip(offset)
+            .limit(size)
+            .map(target -> (long) target.id)
+            .toList();
+    }
+
+    private static List<Long> slice(int[] order, long offset, int size) {
+        int from = (int) offset;
+        int to = (int) Math.min(order.length, offset + size);
+        List<Long> content = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            content.add((long) order[i]);
+        }
+        return content;
+    }
+
+    private static List<Long> scan(int[] order, RoaringBitmap hits, long offset, int size) {
+        List<Long> content = new ArrayList<>(size);
+        long skipped = 0;
+        for (int id : order) {
+            if (!hits.contains(id)) continue;
+            if (skipped++ < offset) continue;
+            content.add((long) id);
+            if (content.size() >= size) break;
+        }
+        return content;
+    }
+
+    private int[] orderOf(Sort sort, Comparator<Attributes> comparator) {
+        int[] cached = orders.get(sort);
+        if (cached != null) return cached;
+
+        int[] order = attributes.values().stream()
+            .sorted(comparator)
+            .mapToInt(target -> target.id)
+            .toArray();
+        if (orders.size() < MAX_CACHED_ORDERS) orders.put(sort, order);
+        return order;
+    }
+
+    public MuseumFacets facets() {
+        lock.readLock().lock();
+        try {
+            return count(all);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public MuseumFacets facets(Collection<Long> ids) {
+        lock.readLock().lock();
+        try {
+            return count(RoaringBitmap.and(all, toBitmap(ids)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private MuseumFacets count(RoaringBitmap hits) {
+        return new MuseumFacets(
+            countByValue(hits, prefectures),
+            countByValue(hits, categories),
+            RoaringBitmap.andCardinality(hits, runningOn(LocalDate.now()))
+        );
+    }
+
+    private Map<String, Long> countByValue(RoaringBitmap hits, Map<String, RoaringBitmap> index) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        index.entrySet().stream()
+            .map(entry -> Map.entry(entry.getKey(), (long) RoaringBitmap.andCardinality(hits, entry.getValue())))
+            .filter(entry -> entry.getValue() > 0)
+            .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+            .forEachOrdered(entry -> counts.put(entry.getKey(), entry.getValue()));
+        return counts;
+    }
+
+    private RoaringBitmap runningOn(LocalDate date) {
+        Running cached = running;
+        if (cached != null && cached.date.equals(date)) return cached.ids;
+
+        RoaringBitmap ids = activeBetween(date, date);
+        running = new Running(date, ids);
+        return ids;
+    }
+
+    // 会期が月と1日でも重なるもの
+    private void retainMonths(RoaringBitmap result, List<YearMonth> values) {
+        if (values.isEmpty()) return;
+
+        RoaringBitmap union = new RoaringBitmap();
+        for (YearMonth month : values) {
+            union.or(activeBetween(month.atDay(1), month.atEndOfMonth()));
+        }
+        result.and(union);
+    }
+
+    // 会期が [from, to] と重なるもの。開始日が未定なら対象外、終了日が未定なら開始後はずっと開催中とみなす
+    private RoaringBitmap activeBetween(LocalDate from, LocalDate to) {
+        RoaringBitmap started = FastAggregation.or(starts.headMap(to, true).values().iterator());
+        started.andNot(FastAggregation.or(ends.headMap(from, false).values().iterator()));
+        return started;
+    }
+
+    private <K> void retainAny(RoaringBitmap result, Map<K, RoaringBitmap> index, List<K> values) {
+        if (values.isEmpty()) return;
+
+        RoaringBitmap union = new RoaringBitmap();
+        for (K value : values) {
+            RoaringBitmap bitmap = index.get(value);
+            if (bitmap != null) union.or(bitmap);
+        }
+        result.and(union);
+    }
+
+    private void add(Attributes target) {
+        attributes.put(target.id, target);
+        all.add(target.id);
+        if (target.prefecture != null) bitmap(prefectures, target.prefecture).add(target.id);
+        for (String category : target.categories) {
+            bitmap(categories, category).add(target.id);
+        }
+        if (target.status != null) bitmap(statuses, target.status).add(target.id);
+        if (target.imageProvider != null) bitmap(imageProviders, target.imageProvider).add(target.id);
+        if (target.startDate != null) bitmap(starts, target.startDate).add(target.id);
+        if (target.endDate != null) bitmap(ends, target.endDate).add(target.id);
+        changed();
+    }
+
+    private void remove(Attributes target) {
+        all.remove(target.id);
+        if (target.prefecture != null) unset(prefectures, target.prefecture, target.id);
+        for (String category : target.categories) {
+            unset(categories, category, target.id);
+        }
+        if (target.status != null) unset(statuses, target.status, target.id);
+        if (target.imageProvider != null) unset(imageProviders, target.imageProvider, target.id);
+        if (target.startDate != null) unset(starts, target.startDate, target.id);
+        if (target.endDate != null) unset(ends, target.endDate, target.id);
+        changed();
+    }
+
+    private void changed() {
+        orders.clear();
+        running = null;
+    }
+
+    private <K> RoaringBitmap bitmap(Map<K, RoaringBitmap> index, K key) {
+        return index.computeIfAbsent(key, k -> new RoaringBitmap());
+    }
+
+    private <K> void unset(Map<K, RoaringBitmap> index, K key, int id) {
+        RoaringBitmap bitmap = index.get(key);
+        if (bitmap == null) return;
+        bitmap.remove(id);
+        if (bitmap.isEmpty()) index.remove(key);
+    }
+
+    private RoaringBitmap toBitmap(Collection<Long> ids) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (Long id : ids) {
+            bitmap.add(toIndexId(id));
+        }
+        return bitmap;
+    }
+
+    private static int toIndexId(Long id) {
+        return Math.toIntExact(id);
+    }
+
+    private Comparator<Attributes> toComparator(Sort sort) {
+        Comparator<Attributes> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<Attributes> next = switch (order.getProperty()) {
+                case "startDate" -> nullsLast(target -> target.startDate, order);
+                case "endDate" -> nullsLast(target -> target.endDate, order);
+                case "name" -> nullsLast(target -> target.name, order);
+                case "id" -> nullsLast(target -> target.id, order);
+                default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "並び替えに使用できない項目です: " + order.getProperty());
+            };
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        Comparator<Attributes> byId = Comparator.comparingInt(target -> target.id);
+        return comparator == null ? byId : comparator.thenComparing(byId);
+    }
+
+    private <T extends Comparable<? super T>> Comparator<Attributes> nullsLast(Function<Attributes, T> key, Sort.Order order) {
+        Comparator<T> natural = order.isDescending() ? Comparator.<T>reverseOrder() : Comparator.<T>naturalOrder();
+        return Comparator.comparing(key, Comparator.nullsLast(natural));
+    }
+
+    private static final class Running {
+        private final LocalDate date;
+        private final RoaringBitmap ids;
+
+        private Running(LocalDate date, RoaringBitmap ids) {
+            this.date = date;
+            this.ids = ids;
+        }
+    }
+
+    private static final class Attributes {
+        private final int id;
+        private final String name;
+        private final String prefecture;
+        private final String[] categories;
+        private final MuseumStatus status;
+        private final String imageProvider;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+
+        private Attributes(Museum museum) {
+            this.id = toIndexId(museum.getId());
+            this.name = museum.getName();
+            this.prefecture = blankToNull(museum.getPrefecture());
+            this.categories = museum.getCategory() == null ? new String[0]
+                : Arrays.stream(museum.getCategory().split(CATEGORY_SEPARATOR))
+                    .map(String::strip)
+                    .filter(category -> !category.isEmpty())
+                    .distinct()
+                    .toArray(String[]::new);
+            this.status = museum.getStatus();
+            this.imageProvider = blankToNull(museum.getImageProvider());
+            this.startDate = museum.getStartDate();
+            this.endDate = museum.getEndDate();
+        }
+
+        static Attributes of(Museum museum) {
+            return new Attributes(museum);
+        }
+
+        private static String blankToNull(String value) {
+            return value == null || value.isBlank() ? null : value.strip();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.museumsearch.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.museumsearch.dto.MuseumCluster;
+import com.example.museumsearch.dto.MuseumViewport;
+import com.example.museumsearch.event.MuseumCatalogLoadedEvent;
+import com.example.museumsearch.event.MuseumChangedEvent;
+import com.example.museumsearch.event.MuseumsImportedEvent;
+import com.example.museumsearch.model.Museum;
+import com.example.museumsearch.repository.MuseumRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MuseumClusterIndex {
+
+    public static final int MAX_ZOOM = 22;
+    // これより拡大した表示ではクラスタにまとめず個別の美術館を返す
+    private static final int MAX_CLUSTER_ZOOM = 16;
+    // 256px タイルを 4x4 に分割した 64px 四方のセルでまとめる
+    private static final int CELLS_PER_TILE_SHIFT = 2;
+    private static final double MAX_MERCATOR_LATITUDE = 85.05112878;
+    // 1画面の上限。これより広い範囲は個別の美術館が際限なく返るため受け付けない
+    private static final int MAX_VIEWPORT_TILES = 16;
+
+    private final MuseumRepository museumRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Point> points = new HashMap<>();
+    private final List<Map<Long, Cell>> levels = new ArrayList<>();
+
+    @EventListener(MuseumCatalogLoadedEvent.class)
+    public void load() {
+        List<Museum> museums = museumRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            points.clear();
+            levels.clear();
+            for (int zoom = 0; zoom <= MAX_CLUSTER_ZOOM; zoom++) {
+                levels.add(new HashMap<>());
+            }
+            for (Museum museum : museums) {
+                add(museum);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("地図クラスタを構築しました: {}件, ズーム0-{}", points.size(), MAX_CLUSTER_ZOOM);
+    }
+
+    @EventListener
+    public void onMuseumChanged(MuseumChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (levels.isEmpty()) return;
+            remove(event.getMuseumId());
+            if (!event.isDeleted()) add(event.getMuseum());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onMuseumsImported(MuseumsImportedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (levels.isEmpty()) return;
+            for (Museum museum : event.getMuseums()) {
+                remove(museum.getId());
+                add(museum);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public MuseumViewport<Long> viewport(double minLat, double minLon, double maxLat, double maxLon, int zoom) {
+        long tilesWide = ((long) toCellX(maxLon, zoom) >> CELLS_PER_TILE_SHIFT) - (toCellX(minLon, zoom) >> CELLS_PER_TILE_SHIFT) + 1;
+        long tilesHigh = ((long) toCellY(minLat, zoom) >> CELLS_PER_TILE_SHIFT) - (toCellY(maxLat, zoom) >> CELLS_PER_TILE_SHIFT) + 1;
+        if (tilesWide > MAX_VIEWPORT_TILES || tilesHigh > MAX_VIEWPORT_TILES) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "表示範囲が広すぎます。ズーム" + zoom + "では縦横" + MAX_VIEWPORT_TILES + "タイル以内で指定してください");
+        }
+
+        List<MuseumCluster> clusters = new ArrayList<>();
+        List<Long> museumIds = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            if (levels.isEmpty()) return new MuseumViewport<>(zoom, clusters, museumIds);
+
+            int level = Math.min(zoom, MAX_CLUSTER_ZOOM);
+            forEachCell(level, minLat, minLon, maxLat, maxLon, (key, cell) -> {
+                if (cell.count > 1 && zoom <= MAX_CLUSTER_ZOOM) {
+                    clusters.add(new MuseumCluster(cell.latitudeSum / cell.count, cell.longitudeSum / cell.count, cell.count));
+                    return;
+                }
+                if (cell.count == 1) {
+                    if (points.get(cell.idSum).isWithin(minLat, minLon, maxLat, maxLon)) museumIds.add(cell.idSum);
+                    return;
+                }
+                for (int id : cell.ids) {
+                    if (points.get((long) id).isWithin(minLat, minLon, maxLat, maxLon)) museumIds.add((long) id);
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        clusters.sort(Comparator.comparingInt(MuseumCluster::getCount).reversed());
+        museumIds.sort(Comparator.naturalOrder());
+        return new MuseumViewport<>(zoom, clusters, museumIds);
+    }
+
+    private void forEachCell(int zoom, double minLat, double minLon, double maxLat, double maxLon, BiConsumer<Long, Cell> action) {
+        Map<Long, Cell> cells = levels.get(zoom);
+        int minX = toCellX(minLon, zoom);
+        int maxX = toCellX(maxLon, zoom);
+        int minY = toCellY(maxLat, zoom);
+        int maxY = toCellY(minLat, zoom);
+
+        // 範囲内のセル数が実在するセル数より多ければ、全セルを走査した方が安い
+        long span = (long) (maxX - minX + 1) * (maxY - minY + 1);
+        if (span > cells.size()) {
+            cells.forEach((key, cell) -> {
+                int x = (int) (key >>> 32);
+                int y = (int) (long) key;
+                if (x >= minX && x <= maxX && y >= minY && y <= maxY) action.accept(key, cell);
+            });
+            return;
+        }
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                long key = cellKey(x, y);
+                Cell cell = cells.get(key);
+                if (cell != null) action.accept(key, cell);
+            }
+        }
+    }
+
+    private void add(Museum museum) {
+        if (museum.getLatitude() == null || museum.getLongitude() == null) return;
+
+        Point point = new Point(museum.getId(), museum.getLatitude(), museum.getLongitude());
+        points.put(point.id, point);
+        for (int zoom = 0; zoom <= MAX_CLUSTER_ZOOM; zoom++) {
+            Cell cell = levels.get(zoom).computeIfAbsent(point.cellKey(zoom), key -> new Cell());
+            cell.count++;
+            cell.latitudeSum += point.latitude;
+            cell.longitudeSum += point.longitude;
+            cell.idSum += point.id;
+            if (zoom == MAX_CLUSTER_ZOOM) {
+                if (cell.ids == null) cell.ids = new RoaringBitmap();
+                cell.ids.add(Math.toIntExact(point.id));
+            }
+        }
+    }
+
+    private void remove(Long museumId) {
+        Point previous = points.remove(museumId);
+        if (previous == null) return;
+
+        for (int zoom = 0; zoom <= MAX_CLUSTER_ZOOM; zoom++) {
+            long key = previous.cellKey(zoom);
+            Cell cell = levels.get(zoom).get(key);
+            if (--cell.count == 0) {
+                levels.get(zoom).remove(key);
+                continue;
+            }
+            cell.latitudeSum -= previous.latitude;
+            cell.longitudeSum -= previous.longitude;
+            cell.idSum -= previous.id;
+            if (cell.ids != null) cell.ids.remove(Math.toIntExact(previous.id));
+        }
+    }
+
+    private static int toCellX(double longitude, int zoom) {
+        int cells = 1 << (zoom + CELLS_PER_TILE_SHIFT);
+        int x = (int) Math.floor((longitude + 180) / 360 * cells);
+        return Math.max(0, Math.min(cells - 1, x));
+    }
+
+    private static int toCellY(double latitude, int zoom) {
+        int cells = 1 << (zoom + CELLS_PER_TILE_SHIFT);
+        double rad = Math.toRadians(Math.max(-MAX_MERCATOR_LATITUDE, Math.min(MAX_MERCATOR_LATITUDE, latitude)));
+        int y = (int) Math.floor((1 - Math.log(Math.tan(rad) + 1 / Math.cos(rad)) / Math.PI) / 2 * cells);
+        return Math.max(0, Math.min(cells - 1, y));
+    }
+
+    private static long cellKey(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    // 集計値だけを持つ。1件だけのセルは idSum がそのまま美術館IDになる。
+    // 所属する美術館の一覧は、個別表示に使う最も細かいレベルでだけ保持する
+    private static final class Cell {
+        private int count;
+        private double latitudeSum;
+        private double longitudeSum;
+        private long idSum;
+        private RoaringBitmap ids;
+    }
+
+    private static final class Point {
+        private final long id;
+        private final double latitude;
+        private final double longitude;
+
+        private Point(long id, double latitude, double longitude) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+
+        long cellKey(int zoom) {
+            return MuseumClusterIndex.cellKey(toCellX(longitude, zoom), toCellY(latitude, zoom));
+        }
+
+        boolean isWithin(double minLat, double minLon, double maxLat, double maxLon) {
+            return latitude >= minLat && latitude <= maxLat && longitude >= minLon && longitude <= maxLon;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.museumsearch.search;
+
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.museumsearch.event.MuseumCatalogLoadedEvent;
+import com.example.museumsearch.event.MuseumChangedEvent;
+import com.example.museumsearch.event.MuseumsImportedEvent;
+import com.example.museumsearch.model.Museum;
+import com.example.museumsearch.repository.MuseumRepository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MuseumGeoIndex {
+
+    private final MuseumRepository museumRepository;
+
+    @Value("${nearby.mode:index}")
+    private NearbySearchMode nearbyMode;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final CoordinateGrid grid = new CoordinateGrid(DistanceKernels.get());
+
+    @EventListener(MuseumCatalogLoadedEvent.class)
+    public void load() {
+        if (nearbyMode == NearbySearchMode.DATABASE) return;
+
+        List<Museum> museums = museumRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            grid.clear();
+            for (Museum museum : museums) {
+                add(museum);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("位置インデックスを構築しました: {}件", grid.size());
+    }
+
+    @EventListener
+    public void onMuseumChanged(MuseumChangedEvent event) {
+        if (nearbyMode == NearbySearchMode.DATABASE) return;
+
+        lock.writeLock().lock();
+        try {
+            remove(event.getMuseumId());
+            if (!event.isDeleted()) add(event.getMuseum());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onMuseumsImported(MuseumsImportedEvent event) {
+        if (nearbyMode == NearbySearchMode.DATABASE) return;
+
+        lock.writeLock().lock();
+        try {
+            for (Museum museum : event.getMuseums()) {
+                remove(museum.getId());
+                add(museum);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Neighbor> nearest(double lat, double lon, Double radiusKm, Integer limit) {
+        lock.readLock().lock();
+        try {
+            return grid.nearest(lat, lon, radiusKm, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(Museum museum) {
+        if (museum.getLatitude() == null || museum.getLongitude() == null) return;
+        grid.add(museum.getId(), museum.getLatitude(), museum.getLongitude());
+    }
+
+    private void remove(Long museumId) {
+        grid.remove(museumId);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Neighbor {
+        private final long museumId;
+        private final double distanceKm;
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.museumsearch.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.museumsearch.event.MuseumCatalogLoadedEvent;
+import com.example.museumsearch.event.MuseumChangedEvent;
+import com.example.museumsearch.event.MuseumsImportedEvent;
+import com.example.museumsearch.model.Museum;
+import com.example.museumsearch.model.MuseumStatus;
+import com.example.museumsearch.repository.MuseumRepository;
+import com.example.museumsearch.util.GeoDistance;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MuseumProximityGraph {
+
+    public static final int NEIGHBORS = 10;
+
+    // k 番目までの距離がこれより多くのセルにまたがる美術館は、セルに登録せず常に候補とする
+    private static final int MAX_REACH_CELLS = 1024;
+
+    private final MuseumRepository museumRepository;
+
+    // 参照側は完成済みの不変リストだけを見る。更新はすべて専用スレッドで直列に行う
+    private final Map<Long, List<MuseumGeoIndex.Neighbor>> neighbors = new ConcurrentHashMap<>();
+    private final ExecutorService updateExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "museum-proximity-graph");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final CoordinateGrid grid = new CoordinateGrid(DistanceKernels.get());
+    private final Map<Long, double[]> coordinates = new HashMap<>();
+    private final Map<Long, Set<Long>> referencedBy = new HashMap<>();
+
+    // 各美術館を、k 番目の近隣までの距離を半径とした円が重なるセルに登録しておく。
+    // 新しい位置のセルに登録されている美術館だけが、その位置を近隣に加える可能性がある
+    private final Map<Long, RoaringBitmap> reachByCell = new HashMap<>();
+    private final Map<Long, int[]> reachOf = new HashMap<>();
+    private final RoaringBitmap unbounded = new RoaringBitmap();
+
+    @PreDestroy
+    public void close() {
+        updateExecutor.shutdownNow();
+    }
+
+    @EventListener(MuseumCatalogLoadedEvent.class)
+    public void load() {
+        List<Museum> museums = museumRepository.findAll();
+        updateExecutor.execute(() -> build(museums));
+    }
+
+    @EventListener
+    public void onMuseumChanged(MuseumChangedEvent event) {
+        Long id = event.getMuseumId();
+        Museum museum = event.isDeleted() ? null : event.getMuseum();
+        updateExecutor.execute(() -> update(id, museum));
+    }
+
+    @EventListener
+    public void onMuseumsImported(MuseumsImportedEvent event) {
+        List<Museum> museums = event.getMuseums();
+        updateExecutor.execute(() -> museums.forEach(museum -> update(museum.getId(), museum)));
+    }
+
+    public List<MuseumGeoIndex.Neighbor> neighborsOf(Long museumId) {
+        return neighbors.getOrDefault(museumId, List.of());
+    }
+
+    private void build(List<Museum> museums) {
+        long started = System.currentTimeMillis();
+        Set<Long> listed = new HashSet<>();
+        for (Museum museum : museums) {
+            if (isListed(museum)) listed.add(museum.getId());
+        }
+        for (Long id : List.copyOf(coordinates.keySet())) {
+            if (!listed.contains(id)) detach(id);
+        }
+        for (Museum museum : museums) {
+            if (isListed(museum)) put(museum.getId(), museum.getLatitude(), museum.getLongitude());
+        }
+        for (Long id : coordinates.keySet()) {
+            recompute(id);
+        }
+        log.info("近隣美術館グラフを構築しました: {}件, {}ms", coordinates.size(), System.currentTimeMillis() - started);
+    }
+
+    private void update(Long id, Museum museum) {
+        double[] previous = coordinates.get(id);
+        boolean listed = museum != null && isListed(museum);
+        if (listed && previous != null && previous[0] == museum.getLatitude() && previous[1] == museum.getLongitude()) {
+            return;
+        }
+
+        if (previous != null) detach(id);
+        if (listed) attach(id, museum.getLatitude(), museum.getLongitude());
+    }
+
+    // 取り除いた美術館を近隣に含んでいたものだけを再計算する
+    private void detach(Long id) {
+        coordinates.remove(id);
+        grid.remove(id);
+        unlink(id);
+        unreach(id);
+        neighbors.remove(id);
+
+        Set<Long> affected = referencedBy.remove(id);
+        if (affected == null) return;
+        for (Long other : affected) {
+            if (coordinates.containsKey(other)) recompute(other);
+        }
+    }
+
+    // 新しい位置の方が現在の k 番目より近い美術館にだけ差し込む。
+    // 候補は新しい位置のセルに届く美術館に限られるので、全件との距離は計算しない
+    private void attach(Long id, double latitude, double longitude) {
+        put(id, latitude, longitude);
+        recompute(id);
+
+        CoordinateStore.Query query = new CoordinateStore.Query(latitude, longitude);
+        RoaringBitmap reaching = reachByCell.get(CoordinateGrid.cellKey(CoordinateGrid.toCell(latitude), CoordinateGrid.toCell(longitude)));
+        RoaringBitmap candidates = reaching == null ? unbounded.clone() : RoaringBitmap.or(reaching, unbounded);
+        for (int candidateId : candidates) {
+            Long other = (long) candidateId;
+            if (other.equals(id)) continue;
+
+            double[] position = coordinates.get(other);
+            double distanceKm = NearestCollector.toKm(query.chordSquared(new CoordinateStore.Query(position[0], position[1])));
+            List<MuseumGeoIndex.Neighbor> current = neighbors.getOrDefault(other, List.of());
+            if (current.size() >= NEIGHBORS && current.get(current.size() - 1).getDistanceKm() <= distanceKm) continue;
+
+            List<MuseumGeoIndex.Neighbor> updated = new ArrayList<>(current.size() + 1);
+            boolean inserted = false;
+            for (MuseumGeoIndex.Neighbor neighbor : current) {
+                if (!inserted && distanceKm < neighbor.getDistanceKm()) {
+                    updated.add(new MuseumGeoIndex.Neighbor(id, distanceKm));
+                    inserted = true;
+                }
+                updated.add(neighbor);
+            }
+            if (!inserted) updated.add(new MuseumGeoIndex.Neighbor(id, distanceKm));
+            publish(other, updated.size() > NEIGHBORS ? updated.subList(0, NEIGHBORS) : updated);
+        }
+    }
+
+    private void recompute(Long id) {
+        double[] position = coordinates.get(id);
+        List<MuseumGeoIndex.Neighbor> nearest = new ArrayList<>(NEIGHBORS);
+        for (MuseumGeoIndex.Neighbor neighbor : grid.nearest(position[0], position[1], null, NEIGHBORS + 1)) {
+            if (neighbor.getMuseumId() != id && nearest.size() < NEIGHBORS) nearest.add(neighbor);
+        }
+        publish(id, nearest);
+    }
+
+    private void publish(Long id, List<MuseumGeoIndex.Neighbor> nearest) {
+        unlink(id);
+        for (MuseumGeoIndex.Neighbor neighbor : nearest) {
+            referencedBy.computeIfAbsent(neighbor.getMuseumId(), key -> new HashSet<>()).add(id);
+        }
+        neighbors.put(id, List.copyOf(nearest));
+        reach(id, nearest.size() < NEIGHBORS ? Double.POSITIVE_INFINITY : nearest.get(nearest.size() - 1).getDistanceKm());
+    }
+
+    private void unlink(Long id) {
+        for (MuseumGeoIndex.Neighbor neighbor : neighbors.getOrDefault(id, List.of())) {
+            Set<Long> sources = referencedBy.get(neighbor.getMuseumId());
+            if (sources == null) continue;
+            sources.remove(id);
+            if (sources.isEmpty()) referencedBy.remove(neighbor.getMuseumId());
+        }
+    }
+
+    // 半径 radiusKm の円を外接する緯度経度の矩形で覆う。経度方向は円の中で最も極に近い緯度で広げる
+    private void reach(Long id, double radiusKm) {
+        unreach(id);
+
+        double[] position = coordinates.get(id);
+        double latitudeSpan = Math.toDegrees(radiusKm / GeoDistance.EARTH_RADIUS_KM);
+        double poleward = Math.abs(position[0]) + latitudeSpan;
+        if (Double.isInfinite(radiusKm) || poleward >= 89) {
+            unbounded.add(Math.toIntExact(id));
+            return;
+        }
+        double longitudeSpan = latitudeSpan / Math.cos(Math.toRadians(poleward));
+        int[] range = {
+            CoordinateGrid.toCell(position[0] - latitudeSpan), CoordinateGrid.toCell(position[0] + latitudeSpan),
+            CoordinateGrid.toCell(position[1] - longitudeSpan), CoordinateGrid.toCell(position[1] + longitudeSpan)
+        };
+        long cellCount = (long) (range[1] - range[0] + 1) * (range[3] - range[2] + 1);
+        if (longitudeSpan >= 180 || cellCount > MAX_REACH_CELLS) {
+            unbounded.add(Math.toIntExact(id));
+            return;
+        }
+
+        for (int latCell = range[0]; latCell <= range[1]; latCell++) {
+            for (int lonCell = range[2]; lonCell <= range[3]; lonCell++) {
+                reachByCell.computeIfAbsent(CoordinateGrid.cellKey(latCell, lonCell), key -> new RoaringBitmap()).add(Math.toIntExact(id));
+            }
+        }
+        reachOf.put(id, range);
+    }
+
+    private void unreach(Long id) {
+        unbounded.remove(Math.toIntExact(id));
+        int[] range = reachOf.remove(id);
+        if (range == null) return;
+
+        for (int latCell = range[0]; latCell <= range[1]; latCell++) {
+            for (int lonCell = range[2]; lonCell <= range[3]; lonCell++) {
+                long key = CoordinateGrid.cellKey(latCell, lonCell);
+                RoaringBitmap reaching = reachByCell.get(key);
+                if (reaching == null) continue;
+                reaching.remove(Math.toIntExact(id));
+                if (reaching.isEmpty()) reachByCell.remove(key);
+            }
+        }
+    }
+
+    private void put(Long id, double latitude, double longitude) {
+        coordinates.put(id, new double[] { latitude, longitude });
+        grid.add(id, latitude, longitude);
+    }
+
+    // 公開ページに近隣として出すので、承認済みで位置の分かる美術館だけを載せる
+    private static boolean isListed(Museum museum) {
+        return museum.getStatus() == MuseumStatus.APPROVED && museum.getLatitude() != null && museum.getLongitude() != null;
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.museumsearch.search;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import com.example.museumsearch.event.MuseumCatalogLoadedEvent;
+import com.example.museumsearch.event.MuseumChangedEvent;
+import com.example.museumsearch.event.MuseumsImportedEvent;
+import com.example.museumsearch.model.Museum;
+import com.example.museumsearch.util.JapaneseTextNormalizer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MuseumSearchCache {
+
+    private static final String CACHE_NAME = "museumSearch";
+
+    private final MuseumSearchIndex museumSearchIndex;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${search.mode:index}")
+    private MuseumSearchMode searchMode;
+
+    @Value("${search.cache.maximum-size:2000}")
+    private long maximumSize;
+
+    @Value("${search.cache.expire-after-write:PT30M}")
+    private Duration expireAfterWrite;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Cache<SearchKey, Page<Museum>> pages;
+    private Cache<String, RoaringBitmap> hitsByKeyword;
+    private Counter invalidations;
+
+    @PostConstruct
+    public void init() {
+        pages = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats()
+            .build();
+        hitsByKeyword = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWrite)
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, CACHE_NAME);
+        invalidations = Counter.builder("cache.invalidations")
+            .description("美術館の更新によって破棄された検索キャッシュのエントリ数")
+            .tag("cache", CACHE_NAME)
+            .register(meterRegistry);
+    }
+
+    public static String normalize(String keyword) {
+        if (keyword == null) return "";
+        return JapaneseTextNormalizer.normalize(keyword);
+    }
+
+    // キーワードのヒット集合をまだ持っていないときだけ、ページと同じ検索で集めてもらう
+    public Page<Museum> get(String keyword, Pageable pageable, Loader loader) {
+        SearchKey key = new SearchKey(keyword, pageable);
+        Page<Museum> cached = pages.getIfPresent(key);
+        if (cached != null) return cached;
+
+        long observedGeneration = generation.get();
+        Loaded loaded = loader.load(hitsByKeyword.getIfPresent(keyword) == null);
+
+        // 世代の確認と格納は破棄と排他にし、確認後に破棄された古い結果を残さない
+        lock.readLock().lock();
+        try {
+            if (generation.get() == observedGeneration) {
+                if (loaded.getHits() != null) hitsByKeyword.put(keyword, loaded.getHits());
+                pages.put(key, loaded.getPage());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return loaded.getPage();
+    }
+
+    // 一括取り込みはキーワードごとの判定より全件破棄の方が安い
+    @Order(MuseumSearchIndex.LISTENER_ORDER + 1)
+    @EventListener({ MuseumCatalogLoadedEvent.class, MuseumsImportedEvent.class })
+    public void onCatalogLoaded() {
+        lock.writeLock().lock();
+        try {
+            generation.incrementAndGet();
+            long before = pages.estimatedSize();
+            pages.invalidateAll();
+            hitsByKeyword.invalidateAll();
+            invalidations.increment(before);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Order(MuseumSearchIndex.LISTENER_ORDER + 1)
+    @EventListener
+    public void onMuseumChanged(MuseumChangedEvent event) {
+        int id = Math.toIntExact(event.getMuseumId());
+
+        lock.writeLock().lock();
+        try {
+            generation.incrementAndGet();
+            Set<String> affected = pages.asMap().keySet().stream()
+                .map(SearchKey::getKeyword)
+                .distinct()
+                .filter(keyword -> isAffected(keyword, id, event))
+                .collect(Collectors.toSet());
+            if (affected.isEmpty()) return;
+
+            long before = pages.estimatedSize();
+            pages.asMap().keySet().removeIf(key -> affected.contains(key.getKeyword()));
+            hitsByKeyword.invalidateAll(affected);
+            invalidations.increment(Math.max(before - pages.estimatedSize(), 0));
+            log.debug("検索キャッシュを破棄しました: id={}, keywords={}", event.getMuseumId(), affected);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 変更前にヒットしていたか、変更後にヒットするキーワードだけを破棄する。
+    // ヒット集合が分からないキーワードは安全側に倒して破棄する
+    private boolean isAffected(String keyword, int id, MuseumChangedEvent event) {
+        RoaringBitmap hitIds = hitsByKeyword.getIfPresent(keyword);
+        if (hitIds == null || hitIds.contains(id)) return true;
+        return !event.isDeleted() && matches(keyword, event.getMuseum());
+    }
+
+    private boolean matches(String keyword, Museum museum) {
+        if (searchMode.forKeyword(keyword) == MuseumSearchMode.INDEX) return museumSearchIndex.matches(keyword, museum);
+
+        return containsNormalized(museum.getName(), keyword)
+            || containsNormalized(museum.getExhibition(), keyword)
+            || containsNormalized(museum.getAddress(), keyword)
+            || containsNormalized(museum.getDescription(), keyword);
+    }
+
+    private boolean containsNormalized(String value, String keyword) {
+        return value != null && JapaneseTextNormalizer.normalize(value).contains(keyword);
+    }
+
+    public interface Loader {
+        Loaded load(boolean collectHits);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Loaded {
+        private final Page<Museum> page;
+        // キーワードにヒットする全美術館。求められなかったときや分からないときは null
+        private final RoaringBitmap hits;
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class SearchKey {
+        private final String keyword;
+        private final Pageable pageable;
+    }
+}
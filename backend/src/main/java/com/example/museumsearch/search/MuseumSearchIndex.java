@@ -0,0 +1,424 @@
+package com.example.museumsearch.search;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.memory.MemoryIndex;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MultiCollectorManager;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldCollectorManager;
+import org.apache.lucene.search.TopScoreDocCollectorManager;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.QueryBuilder;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.museumsearch.dto.MuseumCursor;
+import com.example.museumsearch.event.MuseumCatalogLoadedEvent;
+import com.example.museumsearch.event.MuseumChangedEvent;
+import com.example.museumsearch.event.MuseumsImportedEvent;
+import com.example.museumsearch.model.Museum;
+import com.example.museumsearch.paging.CountMode;
+import com.example.museumsearch.repository.MuseumRepository;
+import com.example.museumsearch.util.JapaneseTextNormalizer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MuseumSearchIndex {
+
+    private static final String ID = "id";
+    private static final String ID_SORT = "id_sort";
+    private static final String NAME_SORT = "name_sort";
+    private static final String START_DATE = "startDate";
+    private static final String END_DATE = "endDate";
+    private static final List<String> TEXT_FIELDS = List.of("name", "exhibition", "address", "description");
+    private static final Map<String, Float> FIELD_BOOSTS = Map.of(
+        "name", 4.0f,
+        "exhibition", 2.5f,
+        "address", 1.0f,
+        "description", 1.0f
+    );
+
+    public static final String RELEVANCE = "relevance";
+
+    // 検索キャッシュより先に更新を反映する。逆順だと破棄後に古い検索結果が再びキャッシュされる
+    static final int LISTENER_ORDER = 0;
+
+    private final MuseumRepository museumRepository;
+
+    @Value("${paging.count-mode:exact}")
+    private CountMode countMode;
+
+    @Value("${search.total-hits-threshold:1000}")
+    private int totalHitsThreshold;
+
+    private final Analyzer indexAnalyzer = MuseumAnalyzers.indexAnalyzer(TEXT_FIELDS);
+    private final Analyzer morphologicalQueryAnalyzer = MuseumAnalyzers.morphological();
+    private final Analyzer bigramQueryAnalyzer = MuseumAnalyzers.bigram(false);
+
+    private ByteBuffersDirectory directory;
+    private IndexWriter indexWriter;
+    private SearcherManager searcherManager;
+
+    @PostConstruct
+    public void init() throws IOException {
+        directory = new ByteBuffersDirectory();
+        indexWriter = new IndexWriter(directory, new IndexWriterConfig(indexAnalyzer));
+        searcherManager = new SearcherManager(indexWriter, null);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        indexWriter.close();
+        directory.close();
+    }
+
+    @Order(LISTENER_ORDER)
+    @EventListener(MuseumCatalogLoadedEvent.class)
+    public void rebuild() {
+        List<Museum> museums = museumRepository.findAll();
+        try {
+            indexWriter.deleteAll();
+            for (Museum museum : museums) {
+                indexWriter.addDocument(toDocument(museum));
+            }
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new UncheckedIOException("検索インデックスの構築に失敗しました", e);
+        }
+        log.info("検索インデックスを構築しました: {}件", museums.size());
+    }
+
+    @Order(LISTENER_ORDER)
+    @EventListener
+    public void onMuseumChanged(MuseumChangedEvent event) {
+        Term idTerm = new Term(ID, String.valueOf(event.getMuseumId()));
+        try {
+            if (event.isDeleted()) {
+                indexWriter.deleteDocuments(idTerm);
+            } else {
+                indexWriter.updateDocument(idTerm, toDocument(event.getMuseum()));
+            }
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            log.error("検索インデックスの更新に失敗しました: id={}", event.getMuseumId(), e);
+        }
+    }
+
+    @Order(LISTENER_ORDER)
+    @EventListener
+    public void onMuseumsImported(MuseumsImportedEvent event) {
+        try {
+            for (Museum museum : event.getMuseums()) {
+                indexWriter.updateDocument(new Term(ID, String.valueOf(museum.getId())), toDocument(museum));
+            }
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            log.error("検索インデックスの更新に失敗しました: {}件", event.getMuseums().size(), e);
+        }
+    }
+
+    public Result search(String keyword, Pageable pageable, boolean collectHits) {
+        Query query = buildQuery(keyword);
+        if (query == null) return new Result(Page.empty(pageable), collectHits ? new RoaringBitmap() : null);
+
+        IndexSearcher searcher = acquire();
+        try {
+            // 件数は上位N件の収集と同じ走査で数える。概算モードでは閾値を超えた先は数えない
+            int maxDoc = Math.max(searcher.getIndexReader().maxDoc(), 1);
+            int numHits = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), maxDoc);
+            int threshold = countMode == CountMode.ESTIMATE ? totalHitsThreshold : Integer.MAX_VALUE;
+            CollectorManager<?, ? extends TopDocs> top = isRelevanceOnly(pageable)
+                ? new TopScoreDocCollectorManager(numHits, threshold)
+                : new TopFieldCollectorManager(toSort(pageable), numHits, threshold);
+
+            // ヒットした全IDが要るときは、同じ走査で一緒に集める
+            TopDocs topDocs;
+            RoaringBitmap hits = null;
+            long total;
+            if (collectHits) {
+                Object[] results = searcher.search(query, new MultiCollectorManager(top, new HitIdsCollectorManager()));
+                topDocs = (TopDocs) results[0];
+                hits = (RoaringBitmap) results[1];
+                total = hits.getLongCardinality();
+            } else {
+                topDocs = searcher.search(query, top);
+                total = topDocs.totalHits.value;
+            }
+
+            if (pageable.getOffset() >= topDocs.scoreDocs.length) {
+                return new Result(new PageImpl<>(List.of(), pageable, total), hits);
+            }
+            return new Result(new PageImpl<>(readIds(searcher, topDocs.scoreDocs, (int) pageable.getOffset()), pageable, total), hits);
+        } catch (IOException e) {
+            throw new UncheckedIOException("検索インデックスの読み込みに失敗しました", e);
+        } finally {
+            release(searcher);
+        }
+    }
+
+    // 絞り込みや件数の集計に使うので順序は問わない
+    public List<Long> searchIds(String keyword) {
+        Query query = buildQuery(keyword);
+        if (query == null) return List.of();
+
+        IndexSearcher searcher = acquire();
+        try {
+            RoaringBitmap hits = searcher.search(query, new HitIdsCollectorManager());
+            List<Long> ids = new ArrayList<>(hits.getCardinality());
+            for (int id : hits) {
+                ids.add((long) id);
+            }
+            return ids;
+        } catch (IOException e) {
+            throw new UncheckedIOException("検索インデックスの読み込みに失敗しました", e);
+        } finally {
+            release(searcher);
+        }
+    }
+
+    public boolean matches(String keyword, Museum museum) {
+        Query query = buildQuery(keyword);
+        if (query == null) return false;
+
+        MemoryIndex memoryIndex = new MemoryIndex();
+        addText(memoryIndex, "name", museum.getName());
+        addText(memoryIndex, "exhibition", museum.getExhibition());
+        addText(memoryIndex, "address", museum.getAddress());
+        addText(memoryIndex, "description", museum.getDescription());
+        return memoryIndex.search(query) > 0.0f;
+    }
+
+    public List<Long> searchAfter(String keyword, MuseumCursor cursor, int count) {
+        Query query = buildQuery(keyword);
+        if (query == null) return List.of();
+
+        long startDate = cursor.isUndated() ? Long.MAX_VALUE : cursor.getStartDate().toEpochDay();
+        Sort sort = new Sort(toSortField(START_DATE, false), new SortField(ID_SORT, SortField.Type.LONG));
+
+        IndexSearcher searcher = acquire();
+        try {
+            int maxDoc = searcher.getIndexReader().maxDoc();
+            if (maxDoc == 0) return List.of();
+
+            FieldDoc after = new FieldDoc(maxDoc - 1, Float.NaN, new Object[] { startDate, cursor.getId() });
+            TopDocs topDocs = searcher.searchAfter(after, query, count, sort);
+            return readIds(searcher, topDocs.scoreDocs, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("検索インデックスの読み込みに失敗しました", e);
+        } finally {
+            release(searcher);
+        }
+    }
+
+    private Query buildQuery(String keyword) {
+        if (keyword == null || keyword.isBlank()) return null;
+
+        QueryBuilder morphological = new QueryBuilder(morphologicalQueryAnalyzer);
+        QueryBuilder bigram = new QueryBuilder(bigramQueryAnalyzer);
+        String normalizedKeyword = JapaneseTextNormalizer.normalize(keyword);
+
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        int clauses = 0;
+        for (String field : TEXT_FIELDS) {
+            float boost = FIELD_BOOSTS.get(field);
+            Query tokens = morphological.createBooleanQuery(field, keyword, BooleanClause.Occur.MUST);
+            if (tokens != null) {
+                builder.add(new BoostQuery(tokens, boost), BooleanClause.Occur.SHOULD);
+                clauses++;
+            }
+            Query phrase = bigram.createPhraseQuery(field + MuseumAnalyzers.BIGRAM_SUFFIX, normalizedKeyword);
+            if (phrase != null) {
+                builder.add(new BoostQuery(phrase, boost), BooleanClause.Occur.SHOULD);
+                clauses++;
+            }
+        }
+        return clauses == 0 ? null : builder.build();
+    }
+
+    private boolean isRelevanceOnly(Pageable pageable) {
+        List<org.springframework.data.domain.Sort.Order> orders = pageable.getSort().toList();
+        return orders.size() == 1 && RELEVANCE.equals(orders.get(0).getProperty());
+    }
+
+    private Sort toSort(Pageable pageable) {
+        List<SortField> fields = new ArrayList<>();
+        for (org.springframework.data.domain.Sort.Order order : pageable.getSort()) {
+            fields.add(toSortField(order.getProperty(), order.isDescending()));
+        }
+        fields.add(new SortField(ID_SORT, SortField.Type.LONG));
+        return new Sort(fields.toArray(SortField[]::new));
+    }
+
+    private SortField toSortField(String property, boolean reverse) {
+        switch (property) {
+            case START_DATE, END_DATE -> {
+                SortField field = new SortField(property, SortField.Type.LONG, reverse);
+                field.setMissingValue(Long.MAX_VALUE);
+                return field;
+            }
+            case "name" -> {
+                SortField field = new SortField(NAME_SORT, SortField.Type.STRING, reverse);
+                field.setMissingValue(SortField.STRING_LAST);
+                return field;
+            }
+            case ID -> {
+                return new SortField(ID_SORT, SortField.Type.LONG, reverse);
+            }
+            case RELEVANCE -> {
+                return SortField.FIELD_SCORE;
+            }
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "並び替えに使用できない項目です: " + property);
+        }
+    }
+
+    private List<Long> readIds(IndexSearcher searcher, ScoreDoc[] scoreDocs, int from) throws IOException {
+        StoredFields storedFields = searcher.storedFields();
+        List<Long> ids = new ArrayList<>(Math.max(scoreDocs.length - from, 0));
+        for (int i = from; i < scoreDocs.length; i++) {
+            ids.add(Long.valueOf(storedFields.document(scoreDocs[i].doc).get(ID)));
+        }
+        return ids;
+    }
+
+    private Document toDocument(Museum museum) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(museum.getId()), Field.Store.YES));
+        document.add(new NumericDocValuesField(ID_SORT, museum.getId()));
+        addText(document, "name", museum.getName());
+        addText(document, "exhibition", museum.getExhibition());
+        addText(document, "address", museum.getAddress());
+        addText(document, "description", museum.getDescription());
+        if (museum.getName() != null) {
+            document.add(new SortedDocValuesField(NAME_SORT, new BytesRef(museum.getName())));
+        }
+        addDate(document, START_DATE, museum.getStartDate());
+        addDate(document, END_DATE, museum.getEndDate());
+        return document;
+    }
+
+    private void addText(Document document, String field, String value) {
+        if (value == null || value.isBlank()) return;
+        document.add(new TextField(field, value, Field.Store.NO));
+        document.add(new TextField(field + MuseumAnalyzers.BIGRAM_SUFFIX, JapaneseTextNormalizer.normalize(value), Field.Store.NO));
+    }
+
+    private void addText(MemoryIndex memoryIndex, String field, String value) {
+        if (value == null || value.isBlank()) return;
+        memoryIndex.addField(field, value, indexAnalyzer);
+        memoryIndex.addField(field + MuseumAnalyzers.BIGRAM_SUFFIX, JapaneseTextNormalizer.normalize(value), indexAnalyzer);
+    }
+
+    private void addDate(Document document, String field, LocalDate value) {
+        if (value == null) return;
+        document.add(new NumericDocValuesField(field, value.toEpochDay()));
+    }
+
+    // スコアを付けずに docValues から美術館IDを読み、ビットマップにまとめる
+    private static final class HitIdsCollector extends SimpleCollector {
+        private final RoaringBitmap ids = new RoaringBitmap();
+        private NumericDocValues values;
+
+        @Override
+        protected void doSetNextReader(LeafReaderContext context) throws IOException {
+            values = DocValues.getNumeric(context.reader(), ID_SORT);
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            if (values.advanceExact(doc)) ids.add(Math.toIntExact(values.longValue()));
+        }
+
+        @Override
+        public ScoreMode scoreMode() {
+            return ScoreMode.COMPLETE_NO_SCORES;
+        }
+    }
+
+    private static final class HitIdsCollectorManager implements CollectorManager<HitIdsCollector, RoaringBitmap> {
+
+        @Override
+        public HitIdsCollector newCollector() {
+            return new HitIdsCollector();
+        }
+
+        @Override
+        public RoaringBitmap reduce(Collection<HitIdsCollector> collectors) {
+            return RoaringBitmap.or(collectors.stream().map(collector -> collector.ids).iterator());
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Result {
+        private final Page<Long> page;
+        // collectHits を指定しなかったときは null
+        private final RoaringBitmap hits;
+    }
+
+    private IndexSearcher acquire() {
+        try {
+            return searcherManager.acquire();
+        } catch (IOException e) {
+            throw new UncheckedIOException("検索インデックスの読み込みに失敗しました", e);
+        }
+    }
+
+    private void release(IndexSearcher searcher) {
+        try {
+            searcherManager.release(searcher);
+        } catch (IOException e) {
+            log.warn("IndexSearcherの解放に失敗しました", e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.museumsearch.search;
+
+public enum MuseumSearchMode {
+    INDEX,
+    DATABASE;
+
+    // pg_trgm は3文字未満のパターンからトライグラムを取り出せず、東京・国立のような2文字の語では索引が効かない
+    public static final int MIN_TRIGRAM_KEYWORD_LENGTH = 3;
+
+    // データベース方式でも、索引の効かない短いキーワードは検索インデックスで探す
+    public MuseumSearchMode forKeyword(String normalizedKeyword) {
+        if (this == DATABASE && normalizedKeyword.codePointCount(0, normalizedKeyword.length()) < MIN_TRIGRAM_KEYWORD_LENGTH) {
+            return INDEX;
+        }
+        return this;
+    }
+}
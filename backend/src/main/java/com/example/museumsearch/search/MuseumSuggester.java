@@ -0,0 +1,183 @@
+package com.example.museumsearch.search;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.lucene.search.suggest.InputIterator;
+import org.apache.lucene.search.suggest.analyzing.AnalyzingSuggester;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.museumsearch.dto.MuseumSuggestion;
+import com.example.museumsearch.event.MuseumCatalogLoadedEvent;
+import com.example.museumsearch.event.MuseumChangedEvent;
+import com.example.museumsearch.event.MuseumsImportedEvent;
+import com.example.museumsearch.model.Museum;
+import com.example.museumsearch.model.MuseumStatus;
+import com.example.museumsearch.repository.MuseumRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MuseumSuggester {
+
+    private final MuseumRepository museumRepository;
+
+    private final Map<Long, Museum> approvedMuseums = new ConcurrentHashMap<>();
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "museum-suggester");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    private volatile AnalyzingSuggester suggester;
+
+    @PreDestroy
+    public void close() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    @EventListener(MuseumCatalogLoadedEvent.class)
+    public void load() {
+        approvedMuseums.clear();
+        for (Museum museum : museumRepository.findByStatus(MuseumStatus.APPROVED)) {
+            approvedMuseums.put(museum.getId(), museum);
+        }
+        rebuild();
+    }
+
+    @EventListener
+    public void onMuseumChanged(MuseumChangedEvent event) {
+        if (!event.isDeleted() && event.getMuseum().getStatus() == MuseumStatus.APPROVED) {
+            approvedMuseums.put(event.getMuseumId(), event.getMuseum());
+        } else if (approvedMuseums.remove(event.getMuseumId()) == null) {
+            return;
+        }
+        scheduleRebuild();
+    }
+
+    @EventListener
+    public void onMuseumsImported(MuseumsImportedEvent event) {
+        for (Museum museum : event.getMuseums()) {
+            if (museum.getStatus() == MuseumStatus.APPROVED) approvedMuseums.put(museum.getId(), museum);
+        }
+        scheduleRebuild();
+    }
+
+    public List<MuseumSuggestion> suggest(String prefix, int limit) {
+        AnalyzingSuggester current = suggester;
+        if (current == null || prefix == null || prefix.isBlank()) return List.of();
+
+        try {
+            return current.lookup(prefix.strip(), false, limit).stream()
+                .map(result -> new MuseumSuggestion(result.key.toString(), decodeType(result.payload)))
+                .toList();
+        } catch (IOException e) {
+            log.warn("サジェストの取得に失敗しました: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildScheduled.set(false);
+                rebuild();
+            });
+        }
+    }
+
+    private synchronized void rebuild() {
+        Map<String, Candidate> candidates = new LinkedHashMap<>();
+        for (Museum museum : approvedMuseums.values()) {
+            addCandidate(candidates, museum.getName(), MuseumSuggestion.Type.NAME);
+            addCandidate(candidates, museum.getExhibition(), MuseumSuggestion.Type.EXHIBITION);
+        }
+
+        AnalyzingSuggester built = new AnalyzingSuggester(new ByteBuffersDirectory(), "suggest", MuseumAnalyzers.keyword());
+        try {
+            built.build(new CandidateIterator(candidates.entrySet().iterator()));
+        } catch (IOException e) {
+            log.error("サジェスト辞書の構築に失敗しました", e);
+            return;
+        }
+        suggester = built;
+        log.info("サジェスト辞書を構築しました: {}件", candidates.size());
+    }
+
+    private void addCandidate(Map<String, Candidate> candidates, String text, MuseumSuggestion.Type type) {
+        if (text == null || text.isBlank() || text.chars().anyMatch(Character::isISOControl)) return;
+        candidates.computeIfAbsent(text.strip(), key -> new Candidate(type)).weight++;
+    }
+
+    private MuseumSuggestion.Type decodeType(BytesRef payload) {
+        return MuseumSuggestion.Type.valueOf(payload.utf8ToString());
+    }
+
+    private static class Candidate {
+        private final MuseumSuggestion.Type type;
+        private long weight;
+
+        Candidate(MuseumSuggestion.Type type) {
+            this.type = type;
+        }
+    }
+
+    private static class CandidateIterator implements InputIterator {
+        private final Iterator<Map.Entry<String, Candidate>> entries;
+        private Candidate current;
+
+        CandidateIterator(Iterator<Map.Entry<String, Candidate>> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public BytesRef next() {
+            if (!entries.hasNext()) return null;
+            Map.Entry<String, Candidate> entry = entries.next();
+            current = entry.getValue();
+            return new BytesRef(entry.getKey());
+        }
+
+        @Override
+        public long weight() {
+            return current.weight;
+        }
+
+        @Override
+        public BytesRef payload() {
+            return new BytesRef(current.type.name().getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public boolean hasPayloads() {
+            return true;
+        }
+
+        @Override
+        public Set<BytesRef> contexts() {
+            return null;
+        }
+
+        @Override
+        public boolean hasContexts() {
+            return false;
+        }
+    }
+}
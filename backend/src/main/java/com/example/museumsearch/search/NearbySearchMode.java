@@ -0,0 +1,6 @@
+package com.example.museumsearch.search;
+
+public enum NearbySearchMode {
+    INDEX,
+    DATABASE
+}
@@ -0,0 +1,108 @@
+package com.example.museumsearch.search;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.example.museumsearch.util.GeoDistance;
+
+// 弦長² をキーにした上限付きの最大ヒープ。全件ソートせずに上位 k 件だけを残す
+class NearestCollector {
+
+    private final int limit;
+    private final double maxChordSquared;
+    private double[] keys;
+    private long[] ids;
+    private int size;
+
+    NearestCollector(int limit, double maxDistanceKm) {
+        this.limit = limit;
+        this.maxChordSquared = toChordSquared(maxDistanceKm);
+        int capacity = Math.min(limit, 64);
+        this.keys = new double[capacity];
+        this.ids = new long[capacity];
+    }
+
+    void offer(double chordSquared, long id) {
+        if (chordSquared > maxChordSquared) return;
+
+        if (size < limit) {
+            if (size == keys.length) {
+                int capacity = (int) Math.min(limit, (long) keys.length * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+            }
+            keys[size] = chordSquared;
+            ids[size] = id;
+            siftUp(size++);
+        } else if (isCloser(chordSquared, id, 0)) {
+            keys[0] = chordSquared;
+            ids[0] = id;
+            siftDown(0);
+        }
+    }
+
+    // これより遠い候補は結果に入らない距離
+    double thresholdKm() {
+        double threshold = size < limit ? maxChordSquared : Math.min(maxChordSquared, keys[0]);
+        return toKm(threshold);
+    }
+
+    // 根から遠い順に取り出すため、末尾から詰めると近い順に並ぶ
+    List<MuseumGeoIndex.Neighbor> toNeighbors() {
+        MuseumGeoIndex.Neighbor[] result = new MuseumGeoIndex.Neighbor[size];
+        while (size > 0) {
+            result[size - 1] = new MuseumGeoIndex.Neighbor(ids[0], toKm(keys[0]));
+            size--;
+            keys[0] = keys[size];
+            ids[0] = ids[size];
+            siftDown(0);
+        }
+        return Arrays.asList(result);
+    }
+
+    private boolean isCloser(double key, long id, int slot) {
+        return key < keys[slot] || (key == keys[slot] && id < ids[slot]);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!isCloser(keys[parent], ids[parent], index)) return;
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = index * 2 + 1;
+            if (left >= size) return;
+            int right = left + 1;
+            int farthest = right < size && isCloser(keys[left], ids[left], right) ? right : left;
+            if (!isCloser(keys[index], ids[index], farthest)) return;
+            swap(index, farthest);
+            index = farthest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        double key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        long id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+    }
+
+    private static double toChordSquared(double distanceKm) {
+        double halfAngle = distanceKm / (2 * GeoDistance.EARTH_RADIUS_KM);
+        if (Double.isInfinite(distanceKm) || halfAngle >= Math.PI / 2) return Double.POSITIVE_INFINITY;
+        double chord = 2 * Math.sin(halfAngle);
+        return chord * chord;
+    }
+
+    static double toKm(double chordSquared) {
+        if (Double.isInfinite(chordSquared)) return Double.POSITIVE_INFINITY;
+        return 2 * GeoDistance.EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(chordSquared) / 2));
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.museumsearch.search;
+
+class ScalarDistanceKernel implements DistanceKernel {
+
+    @Override
+    public void chordSquared(double qx, double qy, double qz, double[] x, double[] y, double[] z, int length, double[] out) {
+        for (int i = 0; i < length; i++) {
+            double dx = x[i] - qx;
+            double dy = y[i] - qy;
+            double dz = z[i] - qz;
+            out[i] = dx * dx + dy * dy + dz * dz;
+        }
+    }
+}
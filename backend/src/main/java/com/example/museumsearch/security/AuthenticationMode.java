@@ -0,0 +1,6 @@
+package com.example.museumsearch.security;
+
+public enum AuthenticationMode {
+    DATABASE,
+    STATELESS
+}
@@ -8,8 +8,10 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -19,6 +21,7 @@ import org.springframework.lang.NonNull;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @Component
@@ -26,7 +29,11 @@ import java.util.List;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtProvider jwtProvider;
-    private final CustomUserDetailsService customUserDetailsService;
+    private final UserDetailsCache userDetailsCache;
+    private final TokenVersionRegistry tokenVersionRegistry;
+
+    @Value("${security.auth-mode:database}")
+    private AuthenticationMode authMode;
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
@@ -36,25 +43,41 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String token = jwtProvider.resolveToken(request);
         log.info("トークン: {}", token);
 
-        if (token != null && jwtProvider.validateToken(token)) {
-            String email = jwtProvider.getEmailFromToken(token);
+        Optional<VerifiedToken> verified = jwtProvider.verify(token);
+        if (verified.isPresent()) {
+            String email = verified.get().getEmail();
 
-            List<String> roles = jwtProvider.getRolesFromToken(token);
+            List<String> roles = verified.get().getRoles();
             log.info("JWTから取得したroles: {}", roles);
 
-            UserDetails userDetails = customUserDetailsService.loadUserByUsername(email);
-
-            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                    userDetails,
-                    null,
-                    userDetails.getAuthorities()
-            );
-            log.info("認証成功 email={}, authorities={}", email, userDetails.getAuthorities());
-            authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            UserDetails userDetails = authMode == AuthenticationMode.STATELESS
+                    ? fromClaims(verified.get())
+                    : userDetailsCache.get(email);
+            if (userDetails != null) {
+                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                        userDetails,
+                        null,
+                        userDetails.getAuthorities()
+                );
+                log.info("認証成功 email={}, authorities={}", email, userDetails.getAuthorities());
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    // DB を引かずにクレームだけで組み立てる。失効済みのバージョンなら認証しない
+    private UserDetails fromClaims(VerifiedToken token) {
+        if (!tokenVersionRegistry.isCurrent(token.getUserId(), token.getTokenVersion())) {
+            log.warn("失効したトークンです: userId={}, ver={}", token.getUserId(), token.getTokenVersion());
+            return null;
+        }
+        return User.withUsername(token.getEmail())
+                .password("")
+                .authorities(token.getRoles().toArray(String[]::new))
+                .build();
+    }
 }
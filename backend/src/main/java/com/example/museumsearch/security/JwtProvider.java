@@ -1,35 +1,61 @@
 package com.example.museumsearch.security;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.example.museumsearch.model.User;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @Component
 @Slf4j
+@RequiredArgsConstructor
 public class JwtProvider {
 
+    private static final String CACHE_NAME = "jwtClaims";
+
+    private final MeterRegistry meterRegistry;
+
     @Value("${jwt.secret}")
     private String secretKey;
 
     @Value("${jwt.expiration}")
     private long expiration;
 
+    @Value("${jwt.claims-cache.maximum-size:10000}")
+    private long claimsCacheMaximumSize;
+
     private Key key;
+    private JwtParser parser;
+    private Cache<String, VerifiedToken> verifiedTokens;
 
     @PostConstruct
     protected void init() {
@@ -43,43 +69,64 @@ public class JwtProvider {
             secretKeyBytes = Arrays.copyOf(secretKeyBytes, 32);
         }
         this.key = Keys.hmacShaKeyFor(secretKeyBytes);
+        this.parser = Jwts.parserBuilder()
+            .setSigningKey(key)
+            .build();
+
+        // 検証済みトークンはそれぞれの exp で失効させる
+        this.verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(claimsCacheMaximumSize)
+            .expireAfter(new Expiry<String, VerifiedToken>() {
+                @Override
+                public long expireAfterCreate(String digest, VerifiedToken token, long currentTime) {
+                    long remaining = token.getExpiresAt().toEpochMilli() - System.currentTimeMillis();
+                    return TimeUnit.MILLISECONDS.toNanos(Math.max(remaining, 0));
+                }
+
+                @Override
+                public long expireAfterUpdate(String digest, VerifiedToken token, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+
+                @Override
+                public long expireAfterRead(String digest, VerifiedToken token, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, CACHE_NAME);
     }
 
-    public String generateToken(String email, List<String> roles) {
+    public String generateToken(User user) {
         Date now = new Date();
         Date expiry = new Date(now.getTime() + expiration);
 
         return Jwts.builder()
-            .setSubject(email)
-            .claim("roles", roles)
+            .setSubject(user.getEmail())
+            .claim("roles", List.of("ROLE_" + user.getRoles()))
+            .claim("uid", user.getId())
+            .claim("ver", user.getTokenVersion())
             .setIssuedAt(now)
             .setExpiration(expiry)
             .signWith(key, SignatureAlgorithm.HS256)
             .compact();
     }
 
+    // 署名検証は初回だけ行い、同じトークンの再訪はダイジェストで引いた検証結果を返す
+    public Optional<VerifiedToken> verify(String token) {
+        if (token == null || token.isBlank()) return Optional.empty();
+        return Optional.ofNullable(verifiedTokens.get(digest(token), hash -> parse(token)));
+    }
+
     public String getEmailFromToken(String token) {
-        return Jwts.parserBuilder()
-            .setSigningKey(key)
-            .build()
-            .parseClaimsJws(token)
-            .getBody()
-            .getSubject();
+        return verify(token)
+            .map(VerifiedToken::getEmail)
+            .orElseThrow(() -> new JwtException("トークンが無効です"));
     }
 
     public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token);
-            return true;
-        } catch (ExpiredJwtException e) {
-            log.warn("トークンの有効期限切れ: {}", e.getMessage());
-        } catch (JwtException | IllegalArgumentException e) {
-            log.warn("トークンが無効です: {}", e.getMessage());
-        }
-        return false;
+        return verify(token).isPresent();
     }
 
     public String resolveToken(HttpServletRequest request) {
@@ -98,13 +145,48 @@ public class JwtProvider {
         return null;
     }
 
-    @SuppressWarnings("unchecked")
     public List<String> getRolesFromToken(String token) {
-        return (List<String>) Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .get("roles", List.class);
+        return verify(token)
+            .map(VerifiedToken::getRoles)
+            .orElseThrow(() -> new JwtException("トークンが無効です"));
+    }
+
+    // 検証に失敗したトークンはキャッシュしない
+    private VerifiedToken parse(String token) {
+        try {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            if (claims.getExpiration() == null) {
+                log.warn("トークンに有効期限がありません");
+                return null;
+            }
+            Number userId = claims.get("uid", Number.class);
+            Number version = claims.get("ver", Number.class);
+            return new VerifiedToken(
+                userId == null ? null : userId.longValue(),
+                claims.getSubject(),
+                roles(claims),
+                version == null ? 0 : version.intValue(),
+                claims.getExpiration().toInstant());
+        } catch (ExpiredJwtException e) {
+            log.warn("トークンの有効期限切れ: {}", e.getMessage());
+        } catch (JwtException | IllegalArgumentException e) {
+            log.warn("トークンが無効です: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    private static List<String> roles(Claims claims) {
+        List<?> roles = claims.get("roles", List.class);
+        if (roles == null) return List.of();
+        return roles.stream().map(String::valueOf).toList();
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
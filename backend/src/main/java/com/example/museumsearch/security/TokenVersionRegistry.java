@@ -0,0 +1,209 @@
+package com.example.museumsearch.security;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.museumsearch.event.UserChangedEvent;
+import com.example.museumsearch.repository.UserRepository;
+import com.example.museumsearch.util.LongBloomFilter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenVersionRegistry {
+
+    private final UserRepository userRepository;
+
+    @Value("${security.auth-mode:database}")
+    private AuthenticationMode authenticationMode;
+
+    // 他のノードでの登録や失効は UserChangedEvent では届かないため、この間隔で全件を読み直す
+    @Value("${security.token-versions.refresh-interval:PT30S}")
+    private Duration refreshInterval;
+
+    // 存在するユーザーIDと、バージョンが0でないユーザーだけを保持する。
+    // ほとんどのユーザーは一度も失効していないので、Bloom フィルタで外れればマップを引かずに済む
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private RoaringBitmap users = new RoaringBitmap();
+    private Map<Long, Integer> versions = new HashMap<>();
+    private LongBloomFilter revoked = new LongBloomFilter(1024);
+    private int revokedCapacity = 1024;
+
+    // 前回の差し替え以降にこのノードで変わったユーザー。読み直した全件より手元の値が新しいことがある
+    private final Set<Long> changedUsers = ConcurrentHashMap.newKeySet();
+    private Cache<Long, Boolean> missing;
+    private ScheduledExecutorService refreshExecutor;
+
+    @PostConstruct
+    public void load() {
+        missing = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(refreshInterval)
+            .build();
+        refresh();
+        log.info("トークンバージョンを読み込みました: {}件 (失効あり {}件)", users.getCardinality(), versions.size());
+
+        if (authenticationMode != AuthenticationMode.STATELESS) return;
+        refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-version-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = refreshInterval.toMillis();
+        refreshExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                log.warn("トークンバージョンの再読み込みに失敗しました: {}", e.getMessage());
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (refreshExecutor != null) refreshExecutor.shutdownNow();
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getUserId() == null) return;
+
+        // 定期的に読み直すノードだけが、次の差し替えで載せ直すために覚えておく
+        if (authenticationMode == AuthenticationMode.STATELESS) changedUsers.add(event.getUserId());
+        Integer version = event.isDeleted() ? null : userRepository.findTokenVersionById(event.getUserId()).orElse(null);
+        lock.writeLock().lock();
+        try {
+            remove(event.getUserId());
+            if (version != null) put(event.getUserId(), version);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        missing.invalidate(event.getUserId());
+    }
+
+    public boolean isCurrent(Long userId, int version) {
+        if (userId == null) return false;
+
+        lock.readLock().lock();
+        try {
+            if (users.contains(toIndexId(userId))) {
+                if (!revoked.mightContain(userId)) return version == 0;
+                return versions.getOrDefault(userId, 0) == version;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // 他のノードで登録されたばかりのユーザーはまだ読み込んでいないので DB を引く
+        Integer current = lookup(userId);
+        return current != null && current == version;
+    }
+
+    private Integer lookup(Long userId) {
+        if (missing.getIfPresent(userId) != null) return null;
+
+        Optional<Integer> found = userRepository.findTokenVersionById(userId);
+        if (found.isEmpty()) {
+            missing.put(userId, Boolean.TRUE);
+            return null;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!users.contains(toIndexId(userId))) put(userId, found.get());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return found.get();
+    }
+
+    // 新しい集合を組み立ててから差し替える。読み込み中も参照側は古い集合で判定できる
+    private void refresh() {
+        List<Object[]> rows = userRepository.findAllTokenVersions();
+
+        RoaringBitmap loadedUsers = new RoaringBitmap();
+        Map<Long, Integer> loadedVersions = new HashMap<>();
+        for (Object[] row : rows) {
+            Long userId = (Long) row[0];
+            int version = (Integer) row[1];
+            loadedUsers.add(toIndexId(userId));
+            if (version != 0) loadedVersions.put(userId, version);
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Long userId : changedUsers) {
+                reapply(userId, loadedUsers, loadedVersions);
+            }
+            changedUsers.clear();
+            users = loadedUsers;
+            versions = loadedVersions;
+            rebuildFilter();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 削除は手元の状態を優先し、バージョンは増える一方なので読み込んだ値と大きい方を採る
+    private void reapply(Long userId, RoaringBitmap loadedUsers, Map<Long, Integer> loadedVersions) {
+        int indexId = toIndexId(userId);
+        if (!users.contains(indexId)) {
+            loadedUsers.remove(indexId);
+            loadedVersions.remove(userId);
+            return;
+        }
+        loadedUsers.add(indexId);
+        int version = Math.max(versions.getOrDefault(userId, 0), loadedVersions.getOrDefault(userId, 0));
+        if (version != 0) loadedVersions.put(userId, version);
+    }
+
+    private void put(Long userId, int version) {
+        users.add(toIndexId(userId));
+        if (version == 0) return;
+
+        versions.put(userId, version);
+        if (versions.size() > revokedCapacity) {
+            rebuildFilter();
+        } else {
+            revoked.add(userId);
+        }
+    }
+
+    private void remove(Long userId) {
+        users.remove(toIndexId(userId));
+        versions.remove(userId);
+    }
+
+    private void rebuildFilter() {
+        while (versions.size() > revokedCapacity) {
+            revokedCapacity *= 2;
+        }
+        revoked = new LongBloomFilter(revokedCapacity);
+        versions.keySet().forEach(revoked::add);
+    }
+
+    private static int toIndexId(Long id) {
+        return Math.toIntExact(id);
+    }
+}
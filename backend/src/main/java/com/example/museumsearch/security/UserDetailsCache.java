@@ -0,0 +1,73 @@
+package com.example.museumsearch.security;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import com.example.museumsearch.event.UserChangedEvent;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserDetailsCache {
+
+    private static final String CACHE_NAME = "userDetails";
+
+    private final CustomUserDetailsService customUserDetailsService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${security.user-details-cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${security.user-details-cache.expire-after-write:PT5M}")
+    private Duration expireAfterWrite;
+
+    private LoadingCache<String, UserDetails> users;
+
+    @PostConstruct
+    public void init() {
+        users = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats()
+            .build(this::load);
+        CaffeineCacheMetrics.monitor(meterRegistry, users, CACHE_NAME);
+    }
+
+    public UserDetails get(String email) {
+        return users.get(email);
+    }
+
+    // JWT 認証では資格情報を使わないため、パスワードハッシュはキャッシュに残さない
+    private UserDetails load(String email) {
+        UserDetails loaded = customUserDetailsService.loadUserByUsername(email);
+        return User.withUsername(loaded.getUsername())
+            .password("")
+            .authorities(loaded.getAuthorities())
+            .accountExpired(!loaded.isAccountNonExpired())
+            .accountLocked(!loaded.isAccountNonLocked())
+            .credentialsExpired(!loaded.isCredentialsNonExpired())
+            .disabled(!loaded.isEnabled())
+            .build();
+    }
+
+    // updateEmail は変更前のメールアドレスで通知される
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getEmail() == null) return;
+        users.invalidate(event.getEmail());
+        log.debug("認証ユーザーキャッシュを破棄しました: email={}", event.getEmail());
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.museumsearch.security;
+
+import java.time.Instant;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class VerifiedToken {
+    private final Long userId;
+    private final String email;
+    private final List<String> roles;
+    private final int tokenVersion;
+    private final Instant expiresAt;
+}
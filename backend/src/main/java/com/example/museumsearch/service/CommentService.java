@@ -4,6 +4,7 @@ import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import com.example.museumsearch.model.Comment;
 
@@ -15,6 +16,8 @@ public interface CommentService {
     Comment findById(Long id);
     List<Comment> getCommentsByUsername(String username);
     Page<Comment> findAllComments(Pageable pageable);
+    Slice<Comment> sliceAllComments(Pageable pageable);
     List<Comment> searchByKeyword(String keyword);
     Page<Comment> searchComments(String keyword, Pageable pageable);
+    Slice<Comment> sliceComments(String keyword, Pageable pageable);
 }
\ No newline at end of file
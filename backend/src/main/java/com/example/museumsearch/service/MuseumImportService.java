@@ -0,0 +1,12 @@
+package com.example.museumsearch.service;
+
+import java.io.InputStream;
+
+import com.example.museumsearch.dto.MuseumImportFormat;
+import com.example.museumsearch.dto.MuseumImportReport;
+import com.example.museumsearch.model.User;
+
+public interface MuseumImportService {
+    MuseumImportReport startImport(InputStream source, MuseumImportFormat format, User user);
+    MuseumImportReport getImport(String id);
+}
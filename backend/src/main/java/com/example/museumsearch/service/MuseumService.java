@@ -4,14 +4,21 @@ import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import com.example.museumsearch.dto.CursorPage;
 import com.example.museumsearch.dto.MuseumDTO;
+import com.example.museumsearch.dto.MuseumFacets;
+import com.example.museumsearch.dto.MuseumFilter;
+import com.example.museumsearch.dto.MuseumSuggestion;
+import com.example.museumsearch.dto.MuseumViewport;
 import com.example.museumsearch.model.Museum;
 import com.example.museumsearch.model.User;
 
 public interface MuseumService {
     List<Museum> findAllMuseums();
     Museum findMuseumById(Long id);
+    MuseumDTO findMuseumDetail(Long id);
     Museum createMuseum(Museum museum);
     Museum updateMuseum(Long id, Museum museum, User user);
     List<Museum> getApprovedMuseums();
@@ -20,5 +27,18 @@ public interface MuseumService {
     Museum rejectMuseum(Long id);
     void deleteMuseum(Long id);
     Page<Museum> searchMuseums(String keyword, Pageable pageable);
-    List<MuseumDTO> getNearbyMuseums(double lat, double lon);
+    Slice<Museum> sliceMuseums(String keyword, Pageable pageable);
+    Page<Museum> findMuseumsByPrefecture(String prefecture, Pageable pageable);
+    Slice<Museum> sliceMuseumsByPrefecture(String prefecture, Pageable pageable);
+    Page<Museum> findMuseumsByCategory(String category, Pageable pageable);
+    Slice<Museum> sliceMuseumsByCategory(String category, Pageable pageable);
+    List<MuseumSuggestion> suggestMuseums(String prefix, int limit);
+    MuseumFacets getFacets(String keyword);
+    Page<Museum> filterMuseums(MuseumFilter filter, Pageable pageable);
+    CursorPage<Museum> scrollMuseums(String keyword, String cursor, int size);
+    CursorPage<Museum> scrollMuseumsByPrefecture(String prefecture, String cursor, int size);
+    CursorPage<Museum> scrollMuseumsByCategory(String category, String cursor, int size);
+    List<MuseumDTO> getNearbyMuseums(double lat, double lon, Double radiusKm, Integer limit);
+    List<MuseumDTO> getNeighborMuseums(Long id);
+    MuseumViewport<Museum> getViewport(String bbox, int zoom);
 }
@@ -4,6 +4,7 @@ import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.example.museumsearch.dto.ViewedMuseumResponse;
@@ -31,5 +32,7 @@ public interface UserService {
     List<User> getAllUsers();
     List<User> searchUsers(String keyword);
     Page<User> getUsers(Pageable pageable);
+    Slice<User> sliceUsers(Pageable pageable);
     Page<User> searchUsers(String keyword, Pageable pageable);
+    Slice<User> sliceUsers(String keyword, Pageable pageable);
 }
@@ -4,13 +4,19 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.NoSuchElementException;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
+import com.example.museumsearch.event.CommentChangedEvent;
 import com.example.museumsearch.model.Comment;
+import com.example.museumsearch.paging.CountShape;
+import com.example.museumsearch.paging.PageCounter;
 import com.example.museumsearch.repository.CommentRepository;
 import com.example.museumsearch.service.CommentService;
+import com.example.museumsearch.util.JapaneseTextNormalizer;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,11 +27,15 @@ import lombok.extern.slf4j.Slf4j;
 public class CommentServiceImpl implements CommentService {
 
     private final CommentRepository commentRepository;
+    private final PageCounter pageCounter;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public Comment saveComment(Comment comment) {
         log.info("コメントを保存します: {}", comment);
-        return commentRepository.save(comment);
+        Comment saved = commentRepository.save(comment);
+        eventPublisher.publishEvent(CommentChangedEvent.saved(saved));
+        return saved;
     }
 
     @Override
@@ -34,7 +44,9 @@ public class CommentServiceImpl implements CommentService {
         existing.updateContent(comment.getContent());
         existing.updateUpdatedAt(LocalDateTime.now());
         log.info("コメントを更新します: id={}, 新しい内容={}", id, comment.getContent());
-        return commentRepository.save(existing);
+        Comment saved = commentRepository.save(existing);
+        eventPublisher.publishEvent(CommentChangedEvent.saved(saved));
+        return saved;
     }
 
     @Override
@@ -45,6 +57,7 @@ public class CommentServiceImpl implements CommentService {
         }
         log.info("コメントを削除します: id={}", id);
         commentRepository.deleteById(id);
+        eventPublisher.publishEvent(CommentChangedEvent.deleted(id));
     }
 
     @Override
@@ -65,16 +78,28 @@ public class CommentServiceImpl implements CommentService {
 
     @Override
     public Page<Comment> findAllComments(Pageable pageable) {
-        return commentRepository.findAll(pageable);
+        return pageCounter.toPage(sliceAllComments(pageable), CountShape.COMMENTS, null, commentRepository::count);
+    }
+
+    @Override
+    public Slice<Comment> sliceAllComments(Pageable pageable) {
+        return commentRepository.findAllBy(pageable);
     }
 
     @Override
     public List<Comment> searchByKeyword(String keyword) {
-        return commentRepository.searchByUsernameOrContent(keyword);
+        return commentRepository.searchByUsernameOrContent(JapaneseTextNormalizer.normalize(keyword));
     }
 
     @Override
     public Page<Comment> searchComments(String keyword, Pageable pageable) {
-        return commentRepository.searchByKeyword(keyword, pageable);
+        String normalized = JapaneseTextNormalizer.normalize(keyword);
+        return pageCounter.toPage(commentRepository.searchByKeyword(normalized, pageable), CountShape.COMMENTS_BY_KEYWORD, normalized,
+            () -> commentRepository.countByKeyword(normalized));
+    }
+
+    @Override
+    public Slice<Comment> sliceComments(String keyword, Pageable pageable) {
+        return commentRepository.searchByKeyword(JapaneseTextNormalizer.normalize(keyword), pageable);
     }
 }
@@ -0,0 +1,299 @@
+package com.example.museumsearch.service.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.museumsearch.config.DataLoader;
+import com.example.museumsearch.config.MuseumCsvMapping;
+import com.example.museumsearch.config.MuseumCsvParser;
+import com.example.museumsearch.dto.MuseumImportFormat;
+import com.example.museumsearch.dto.MuseumImportReport;
+import com.example.museumsearch.event.MuseumsImportedEvent;
+import com.example.museumsearch.model.Museum;
+import com.example.museumsearch.model.User;
+import com.example.museumsearch.repository.MuseumRepository;
+import com.example.museumsearch.service.MuseumImportService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MuseumImportServiceImpl implements MuseumImportService {
+
+    private final MuseumRepository museumRepository;
+    private final MuseumCsvParser csvParser;
+    private final DataLoader dataLoader;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${museum.loader.batch-size:500}")
+    private int batchSize;
+
+    @Value("${museum.import.max-errors:1000}")
+    private int maxErrors;
+
+    // 取り込みは1件ずつ順番に行う。後から来たものは QUEUED のまま待つ
+    private final ExecutorService importExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "museum-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // 直近の結果だけを残す
+    private final Cache<String, ImportJob> jobs = Caffeine.newBuilder().maximumSize(100).build();
+
+    @PreDestroy
+    public void close() {
+        importExecutor.shutdownNow();
+    }
+
+    // アップロードは一時ファイルに書き出してから受け付け、解析は専用スレッドで行う
+    @Override
+    public MuseumImportReport startImport(InputStream source, MuseumImportFormat format, User user) {
+        if (!dataLoader.isLoaded()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "美術館データの読み込みが終わっていません");
+        }
+
+        Path spool;
+        try {
+            spool = Files.createTempFile("museum-import-", format == MuseumImportFormat.CSV ? ".csv" : ".ndjson");
+            try (InputStream in = source) {
+                Files.copy(in, spool, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("アップロードされたファイルを保存できません", e);
+        }
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), format, user.getId());
+        jobs.put(job.id, job);
+        log.info("美術館の一括取り込みを受け付けました: id={}, 形式={}, {}bytes", job.id, format, spool.toFile().length());
+        importExecutor.execute(() -> run(job, spool));
+        return job.toReport();
+    }
+
+    @Override
+    public MuseumImportReport getImport(String id) {
+        ImportJob job = jobs.getIfPresent(id);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "取り込みが見つかりません: " + id);
+        }
+        return job.toReport();
+    }
+
+    private void run(ImportJob job, Path spool) {
+        job.startedAt = Instant.now();
+        job.status = MuseumImportReport.Status.RUNNING;
+        long started = System.nanoTime();
+        try {
+            Set<String> seen = loadExistingKeys();
+            List<Museum> batch = new ArrayList<>(batchSize);
+            if (job.format == MuseumImportFormat.CSV) {
+                csvParser.parse(Files.newBufferedReader(spool, StandardCharsets.UTF_8),
+                    this::convert,
+                    row -> accept(job, row, seen, batch));
+            } else {
+                readNdjson(spool, row -> accept(job, row, seen, batch));
+            }
+            insert(job, batch);
+            job.status = MuseumImportReport.Status.COMPLETED;
+        } catch (IOException | RuntimeException e) {
+            job.failure = e.getMessage();
+            job.status = MuseumImportReport.Status.FAILED;
+            log.error("美術館の一括取り込みに失敗しました: id={}", job.id, e);
+        } finally {
+            job.finishedAt = Instant.now();
+            try {
+                Files.deleteIfExists(spool);
+            } catch (IOException e) {
+                log.warn("一時ファイルを削除できません: {}", spool);
+            }
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        log.info("美術館の一括取り込みが終了しました: id={}, 追加 {}件, スキップ {}件, {}ms",
+            job.id, job.inserted.get(), job.skipped.get(), elapsedMillis);
+    }
+
+    // 取り込み済みのものと重ならないよう、名称 + 展示名で判定する
+    private Set<String> loadExistingKeys() {
+        Set<String> keys = new HashSet<>();
+        jdbcTemplate.query(
+            "SELECT name, exhibition FROM museums WHERE status IS DISTINCT FROM 'ARCHIVED'",
+            rs -> {
+                keys.add(MuseumCsvMapping.sourceKey(rs.getString("name"), rs.getString("exhibition")));
+            });
+        return keys;
+    }
+
+    private void readNdjson(Path spool, Consumer<ImportRow> sink) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(spool, StandardCharsets.UTF_8)) {
+            long line = 0;
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) continue;
+
+                JsonNode node;
+                try {
+                    node = objectMapper.readTree(text);
+                } catch (JsonProcessingException e) {
+                    sink.accept(ImportRow.error(line, "JSONとして解析できません: " + e.getOriginalMessage()));
+                    continue;
+                }
+                if (!node.isObject()) {
+                    sink.accept(ImportRow.error(line, "JSONオブジェクトではありません"));
+                    continue;
+                }
+
+                String[] fields = new String[MuseumCsvMapping.COLUMNS.size()];
+                for (int i = 0; i < fields.length; i++) {
+                    JsonNode value = node.get(MuseumCsvMapping.COLUMNS.get(i));
+                    fields[i] = value == null || value.isNull() ? "" : value.asText();
+                }
+                sink.accept(convert(fields, line));
+            }
+        }
+    }
+
+    // CSV では並列に呼ばれる
+    private ImportRow convert(String[] fields, long line) {
+        Museum museum;
+        try {
+            museum = MuseumCsvMapping.toMuseum(fields);
+        } catch (RuntimeException e) {
+            return ImportRow.error(line, "値を変換できません: " + e.getMessage());
+        }
+
+        Set<ConstraintViolation<Museum>> violations = validator.validate(museum);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<Museum> violation = violations.iterator().next();
+            return ImportRow.error(line, violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+        return new ImportRow(line, MuseumCsvMapping.sourceKey(fields), museum, null);
+    }
+
+    private void accept(ImportJob job, ImportRow row, Set<String> seen, List<Museum> batch) {
+        job.processedRows.incrementAndGet();
+        if (row.error != null) {
+            job.reject(row.line, row.error, maxErrors);
+            return;
+        }
+        if (!seen.add(row.key)) {
+            job.reject(row.line, "名称と展示名が同じ美術館が既に登録されています (" + row.museum.getName() + ")", maxErrors);
+            return;
+        }
+
+        batch.add(row.museum);
+        if (batch.size() >= batchSize) insert(job, batch);
+    }
+
+    // 取り込んだ美術館は実行した管理者の登録扱いにする。起動時の CSV 同期の対象外になる。
+    // コミットしたバッチごとに通知し、各インデックスには作り直さず差分として反映させる
+    private void insert(ImportJob job, List<Museum> batch) {
+        if (batch.isEmpty()) return;
+
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = entityManager.getReference(User.class, job.userId);
+            batch.forEach(museum -> museum.updateCreatedBy(user));
+            museumRepository.saveAll(batch);
+            entityManager.flush();
+            entityManager.clear();
+        });
+        job.inserted.addAndGet(batch.size());
+
+        // 保存したエンティティは clear で切り離され、登録者も未初期化の参照のまま残る。
+        // 各インデックスには読み直した美術館を渡し、後から関連をたどっても失敗しないようにする
+        List<Long> ids = batch.stream().map(Museum::getId).toList();
+        batch.clear();
+        eventPublisher.publishEvent(new MuseumsImportedEvent(museumRepository.findAllById(ids)));
+    }
+
+    private static class ImportRow {
+        private final long line;
+        private final String key;
+        private final Museum museum;
+        private final String error;
+
+        ImportRow(long line, String key, Museum museum, String error) {
+            this.line = line;
+            this.key = key;
+            this.museum = museum;
+            this.error = error;
+        }
+
+        static ImportRow error(long line, String message) {
+            return new ImportRow(line, null, null, message);
+        }
+    }
+
+    // 進捗は取り込みスレッドだけが書き、参照側はその時点の値を読む
+    private static class ImportJob {
+        private final String id;
+        private final MuseumImportFormat format;
+        private final Long userId;
+        private final AtomicLong processedRows = new AtomicLong();
+        private final AtomicLong inserted = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final List<MuseumImportReport.RowError> errors = new CopyOnWriteArrayList<>();
+        private volatile MuseumImportReport.Status status = MuseumImportReport.Status.QUEUED;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile String failure;
+
+        ImportJob(String id, MuseumImportFormat format, Long userId) {
+            this.id = id;
+            this.format = format;
+            this.userId = userId;
+        }
+
+        void reject(long line, String message, int maxErrors) {
+            skipped.incrementAndGet();
+            if (errors.size() < maxErrors) errors.add(new MuseumImportReport.RowError(line, message));
+        }
+
+        MuseumImportReport toReport() {
+            return new MuseumImportReport(id, status, format, processedRows.get(), inserted.get(), skipped.get(),
+                List.copyOf(errors), startedAt, finishedAt, failure);
+        }
+    }
+}
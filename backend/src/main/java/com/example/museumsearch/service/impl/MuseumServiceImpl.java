@@ -1,25 +1,58 @@
 package com.example.museumsearch.service.impl;
 
+import com.example.museumsearch.cache.MuseumDetailCache;
+import com.example.museumsearch.dto.CursorPage;
+import com.example.museumsearch.dto.MuseumCursor;
 import com.example.museumsearch.dto.MuseumDTO;
+import com.example.museumsearch.dto.MuseumFacets;
+import com.example.museumsearch.dto.MuseumFilter;
+import com.example.museumsearch.dto.MuseumSuggestion;
+import com.example.museumsearch.dto.MuseumViewport;
+import com.example.museumsearch.event.MuseumChangedEvent;
 import com.example.museumsearch.model.Museum;
 import com.example.museumsearch.model.MuseumStatus;
 import com.example.museumsearch.model.Role;
 import com.example.museumsearch.model.User;
+import com.example.museumsearch.paging.CountShape;
+import com.example.museumsearch.paging.PageCounter;
 import com.example.museumsearch.repository.MuseumRepository;
+import com.example.museumsearch.search.MuseumAttributeIndex;
+import com.example.museumsearch.search.MuseumClusterIndex;
+import com.example.museumsearch.search.MuseumGeoIndex;
+import com.example.museumsearch.search.MuseumProximityGraph;
+import com.example.museumsearch.search.MuseumSearchCache;
+import com.example.museumsearch.search.MuseumSearchIndex;
+import com.example.museumsearch.search.MuseumSearchMode;
+import com.example.museumsearch.search.NearbySearchMode;
+import com.example.museumsearch.search.MuseumSuggester;
 import com.example.museumsearch.service.MuseumService;
+import com.example.museumsearch.util.GeoDistance;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.util.Comparator;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -27,7 +60,25 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class MuseumServiceImpl implements MuseumService {
 
+    private static final int MAX_NEARBY_RESULTS = 100;
+
     private final MuseumRepository museumRepository;
+    private final MuseumSearchIndex museumSearchIndex;
+    private final MuseumAttributeIndex museumAttributeIndex;
+    private final MuseumGeoIndex museumGeoIndex;
+    private final MuseumClusterIndex museumClusterIndex;
+    private final MuseumProximityGraph museumProximityGraph;
+    private final MuseumDetailCache museumDetailCache;
+    private final MuseumSearchCache museumSearchCache;
+    private final MuseumSuggester museumSuggester;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PageCounter pageCounter;
+
+    @Value("${search.mode:index}")
+    private MuseumSearchMode searchMode;
+
+    @Value("${nearby.mode:index}")
+    private NearbySearchMode nearbyMode;
 
     @Override
     public List<Museum> findAllMuseums() {
@@ -40,10 +91,17 @@ public class MuseumServiceImpl implements MuseumService {
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "指定されたIDの美術館が見つかりません: " + id));
     }
 
+    @Override
+    public MuseumDTO findMuseumDetail(Long id) {
+        return museumDetailCache.get(id);
+    }
+
     @Override
     public Museum createMuseum(Museum museum) {
         log.info("美術館を保存します: {}", museum);
-        return museumRepository.save(museum);
+        Museum saved = museumRepository.save(museum);
+        eventPublisher.publishEvent(MuseumChangedEvent.saved(saved));
+        return saved;
     }
 
     @Override
@@ -78,7 +136,9 @@ public class MuseumServiceImpl implements MuseumService {
         existingMuseum.updateCategory(updatedMuseum.getCategory());
         if (isOwner) existingMuseum.updateStatus(MuseumStatus.PENDING);
 
-        return museumRepository.save(existingMuseum);
+        Museum saved = museumRepository.save(existingMuseum);
+        eventPublisher.publishEvent(MuseumChangedEvent.saved(saved));
+        return saved;
     }
 
     @Override
@@ -96,7 +156,9 @@ public class MuseumServiceImpl implements MuseumService {
         Museum museum = museumRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "指定されたIDの美術館が見つかりません: " + id));
         museum.updateStatus(MuseumStatus.APPROVED);
-        return museumRepository.save(museum);
+        Museum saved = museumRepository.save(museum);
+        eventPublisher.publishEvent(MuseumChangedEvent.saved(saved));
+        return saved;
     }
 
     @Override
@@ -104,7 +166,9 @@ public class MuseumServiceImpl implements MuseumService {
         Museum museum = museumRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "指定されたIDの美術館が見つかりません: " + id));
         museum.updateStatus(MuseumStatus.REJECTED);
-        return museumRepository.save(museum);
+        Museum saved = museumRepository.save(museum);
+        eventPublisher.publishEvent(MuseumChangedEvent.saved(saved));
+        return saved;
     }
 
     @Override
@@ -115,61 +179,279 @@ public class MuseumServiceImpl implements MuseumService {
         }
         log.info("美術館を削除します: id={}", id);
         museumRepository.deleteById(id);
+        eventPublisher.publishEvent(MuseumChangedEvent.deleted(id));
     }
 
     @Override
     public Page<Museum> searchMuseums(String keyword, Pageable pageable) {
         if (keyword == null || keyword.isBlank()) return Page.empty(pageable);
 
-        return museumRepository
-            .findByNameContainingIgnoreCaseOrExhibitionContainingIgnoreCaseOrAddressContainingIgnoreCase(keyword, keyword, keyword, pageable);
-    }
-
-    @Override
-    public List<MuseumDTO> getNearbyMuseums(double lat, double lon) {
-        List<Museum> museums = museumRepository.findAll();
-
-        return museums.stream()
-            .map(museum -> {
-                double distance = calculateDistance(lat, lon, museum.getLatitude(), museum.getLongitude());
-                return MuseumDTO.builder()
-                    .id(museum.getId())
-                    .name(museum.getName())
-                    .address(museum.getAddress())
-                    .prefecture(museum.getPrefecture())
-                    .phoneNumber(museum.getPhoneNumber())
-                    .exhibition(museum.getExhibition())
-                    .museumUrl(museum.getMuseumUrl())
-                    .exhibitionUrl(museum.getExhibitionUrl())
-                    .startDate(museum.getStartDate())
-                    .endDate(museum.getEndDate())
-                    .description(museum.getDescription())
-                    .openingHours(museum.getOpeningHours())
-                    .closingDays(museum.getClosingDays())
-                    .admissionFee(museum.getAdmissionFee())
-                    .access(museum.getAccess())
-                    .latitude(museum.getLatitude())
-                    .longitude(museum.getLongitude())
-                    .category(museum.getCategory())
-                    .distance(distance)
-                    .build();
-            })
-            .sorted(Comparator.comparingDouble(
-                m -> calculateDistance(lat, lon, m.getLatitude(), m.getLongitude())
-            ))
-            .collect(Collectors.toList());
-    }
-
-    private double calculateDistance(double lat, double lon, double museumLatitude, double museumLongitude) {
-        double earthRadiusKm = 6371;
-        double deltaLatitudeRad = Math.toRadians(museumLatitude - lat);
-        double deltaLongitudeRad =  Math.toRadians(museumLongitude - lon);
-
-        double haversineFormulaValue = Math.sin(deltaLatitudeRad / 2) * Math.sin(deltaLatitudeRad / 2) +
-                                       Math.cos(Math.toRadians(lat)) * Math.cos(Math.toRadians(museumLatitude)) * 
-                                       Math.sin(deltaLongitudeRad) * Math.sin(deltaLongitudeRad / 2);
-
-        double  centralAngleRad = 2 * Math.atan2(Math.sqrt(haversineFormulaValue), Math.sqrt(1 - haversineFormulaValue));
-        return earthRadiusKm * centralAngleRad;
+        String normalized = MuseumSearchCache.normalize(keyword);
+        return museumSearchCache.get(normalized, pageable, collectHits -> search(normalized, pageable, collectHits));
+    }
+
+    // データベース方式ではヒット集合のためにもう一度検索はしない。1ページに収まったときだけページの中身から作る
+    private MuseumSearchCache.Loaded search(String keyword, Pageable pageable, boolean collectHits) {
+        if (searchMode.forKeyword(keyword) == MuseumSearchMode.DATABASE) {
+            Page<Museum> page = pageCounter.toPage(museumRepository.searchByTrigram(keyword, withoutRelevance(pageable)),
+                CountShape.MUSEUMS_BY_KEYWORD, keyword, () -> museumRepository.countByTrigram(keyword));
+            boolean complete = collectHits && page.isFirst() && !page.hasNext();
+            return new MuseumSearchCache.Loaded(page, complete ? toBitmap(page.getContent()) : null);
+        }
+
+        MuseumSearchIndex.Result result = museumSearchIndex.search(keyword, pageable, collectHits);
+        Page<Long> ids = result.getPage();
+        return new MuseumSearchCache.Loaded(new PageImpl<>(findAllInOrder(ids.getContent()), pageable, ids.getTotalElements()),
+            result.getHits());
+    }
+
+    private static RoaringBitmap toBitmap(List<Museum> museums) {
+        RoaringBitmap ids = new RoaringBitmap();
+        for (Museum museum : museums) {
+            ids.add(Math.toIntExact(museum.getId()));
+        }
+        return ids;
+    }
+
+    @Override
+    public Slice<Museum> sliceMuseums(String keyword, Pageable pageable) {
+        if (keyword == null || keyword.isBlank()) return new SliceImpl<>(List.of(), pageable, false);
+
+        String normalized = MuseumSearchCache.normalize(keyword);
+        if (searchMode.forKeyword(normalized) == MuseumSearchMode.DATABASE) {
+            return museumRepository.searchByTrigram(normalized, withoutRelevance(pageable));
+        }
+        return searchMuseums(keyword, pageable);
+    }
+
+    @Override
+    public Page<Museum> findMuseumsByPrefecture(String prefecture, Pageable pageable) {
+        return pageCounter.toPage(sliceMuseumsByPrefecture(prefecture, pageable), CountShape.MUSEUMS_BY_PREFECTURE, prefecture,
+            () -> museumRepository.countByPrefectureEqualsIgnoreCase(prefecture));
+    }
+
+    @Override
+    public Slice<Museum> sliceMuseumsByPrefecture(String prefecture, Pageable pageable) {
+        return museumRepository.findByPrefectureEqualsIgnoreCase(prefecture, pageable);
+    }
+
+    @Override
+    public Page<Museum> findMuseumsByCategory(String category, Pageable pageable) {
+        return pageCounter.toPage(sliceMuseumsByCategory(category, pageable), CountShape.MUSEUMS_BY_CATEGORY, category,
+            () -> museumRepository.countByCategoryContaining(category));
+    }
+
+    @Override
+    public Slice<Museum> sliceMuseumsByCategory(String category, Pageable pageable) {
+        return museumRepository.findByCategoryContaining(category, pageable);
+    }
+
+    @Override
+    public List<MuseumSuggestion> suggestMuseums(String prefix, int limit) {
+        return museumSuggester.suggest(prefix, Math.max(1, Math.min(limit, 50)));
+    }
+
+    @Override
+    public MuseumFacets getFacets(String keyword) {
+        if (keyword == null || keyword.isBlank()) return museumAttributeIndex.facets();
+        return museumAttributeIndex.facets(searchIds(keyword));
+    }
+
+    @Override
+    public Page<Museum> filterMuseums(MuseumFilter filter, Pageable pageable) {
+        RoaringBitmap matched = museumAttributeIndex.filter(filter, filter.hasKeyword() ? searchIds(filter.getKeyword()) : null);
+        Page<Long> ids = museumAttributeIndex.page(matched, pageable);
+        return new PageImpl<>(findAllInOrder(ids.getContent()), pageable, ids.getTotalElements());
+    }
+
+    private List<Long> searchIds(String keyword) {
+        String normalized = MuseumSearchCache.normalize(keyword);
+        return searchMode.forKeyword(normalized) == MuseumSearchMode.DATABASE
+            ? museumRepository.searchIdsByTrigram(normalized)
+            : museumSearchIndex.searchIds(keyword);
+    }
+
+    @Override
+    public CursorPage<Museum> scrollMuseums(String keyword, String cursor, int size) {
+        if (keyword == null || keyword.isBlank()) return new CursorPage<>(List.of(), null, false);
+
+        String normalized = MuseumSearchCache.normalize(keyword);
+        if (searchMode.forKeyword(normalized) == MuseumSearchMode.DATABASE) {
+            return scroll(cursor, size,
+                (startDate, id, limit) -> museumRepository.searchByTrigramAfter(normalized, startDate, id, limit),
+                (id, limit) -> museumRepository.searchUndatedByTrigramAfter(normalized, id, limit));
+        }
+
+        int pageSize = clampPageSize(size);
+        List<Long> ids = museumSearchIndex.searchAfter(keyword, MuseumCursor.decode(cursor), pageSize + 1);
+        return toCursorPage(findAllInOrder(ids), pageSize);
+    }
+
+    @Override
+    public CursorPage<Museum> scrollMuseumsByPrefecture(String prefecture, String cursor, int size) {
+        return scroll(cursor, size,
+            (startDate, id, limit) -> museumRepository.findByPrefectureAfter(prefecture, startDate, id, limit),
+            (id, limit) -> museumRepository.findUndatedByPrefectureAfter(prefecture, id, limit));
+    }
+
+    @Override
+    public CursorPage<Museum> scrollMuseumsByCategory(String category, String cursor, int size) {
+        return scroll(cursor, size,
+            (startDate, id, limit) -> museumRepository.findByCategoryAfter(category, startDate, id, limit),
+            (id, limit) -> museumRepository.findUndatedByCategoryAfter(category, id, limit));
+    }
+
+    private CursorPage<Museum> scroll(String token, int size, DatedSeek dated, UndatedSeek undated) {
+        MuseumCursor cursor = MuseumCursor.decode(token);
+        int pageSize = clampPageSize(size);
+
+        List<Museum> rows = new ArrayList<>(pageSize + 1);
+        if (!cursor.isUndated()) {
+            rows.addAll(dated.find(cursor.getStartDate(), cursor.getId(), Limit.of(pageSize + 1)));
+        }
+        if (rows.size() <= pageSize) {
+            Long undatedAfter = cursor.isUndated() ? cursor.getId() : 0L;
+            rows.addAll(undated.find(undatedAfter, Limit.of(pageSize + 1 - rows.size())));
+        }
+        return toCursorPage(rows, pageSize);
+    }
+
+    private CursorPage<Museum> toCursorPage(List<Museum> rows, int pageSize) {
+        if (rows.size() <= pageSize) return new CursorPage<>(rows, null, false);
+
+        List<Museum> content = List.copyOf(rows.subList(0, pageSize));
+        return new CursorPage<>(content, MuseumCursor.after(content.get(pageSize - 1)).encode(), true);
+    }
+
+    private int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, 100));
+    }
+
+    private interface DatedSeek {
+        List<Museum> find(LocalDate startDate, Long id, Limit limit);
+    }
+
+    private interface UndatedSeek {
+        List<Museum> find(Long id, Limit limit);
+    }
+
+    private Pageable withoutRelevance(Pageable pageable) {
+        Sort sort = Sort.by(pageable.getSort().stream()
+            .filter(order -> !MuseumSearchIndex.RELEVANCE.equals(order.getProperty()))
+            .toList());
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort.isSorted() ? sort : Sort.by("startDate"));
+    }
+
+    private List<Museum> findAllInOrder(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+
+        Map<Long, Museum> museums = museumRepository.findAllById(ids).stream()
+            .collect(Collectors.toMap(Museum::getId, Function.identity()));
+        return ids.stream()
+            .map(museums::get)
+            .filter(Objects::nonNull)
+            .toList();
+    }
+
+    @Override
+    public List<MuseumDTO> getNearbyMuseums(double lat, double lon, Double radiusKm, Integer limit) {
+        if (radiusKm != null && !(radiusKm > 0)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "検索半径は正の値で指定してください");
+        }
+        if (limit != null && limit <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "取得件数は1以上で指定してください");
+        }
+
+        // 件数の指定がなくても上限までに抑える。どちらの方式でも同じ件数を返す
+        int maxResults = limit == null ? MAX_NEARBY_RESULTS : Math.min(limit, MAX_NEARBY_RESULTS);
+        if (nearbyMode == NearbySearchMode.DATABASE) return findNearbyInDatabase(lat, lon, radiusKm, maxResults);
+
+        return toNearbyDTOs(museumGeoIndex.nearest(lat, lon, radiusKm, maxResults));
+    }
+
+    private List<MuseumDTO> toNearbyDTOs(List<MuseumGeoIndex.Neighbor> neighbors) {
+        if (neighbors.isEmpty()) return List.of();
+
+        Map<Long, Museum> museums = museumRepository.findAllById(neighbors.stream().map(MuseumGeoIndex.Neighbor::getMuseumId).toList())
+            .stream()
+            .collect(Collectors.toMap(Museum::getId, Function.identity()));
+        return neighbors.stream()
+            .filter(neighbor -> museums.containsKey(neighbor.getMuseumId()))
+            .map(neighbor -> toNearbyDTO(museums.get(neighbor.getMuseumId()), neighbor.getDistanceKm()))
+            .toList();
+    }
+
+    @Override
+    public List<MuseumDTO> getNeighborMuseums(Long id) {
+        List<MuseumGeoIndex.Neighbor> neighbors = museumProximityGraph.neighborsOf(id);
+        if (neighbors.isEmpty() && !museumRepository.existsById(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "指定されたIDの美術館が見つかりません: " + id);
+        }
+        return toNearbyDTOs(neighbors);
+    }
+
+    @Override
+    public MuseumViewport<Museum> getViewport(String bbox, int zoom) {
+        double[] bounds = parseBoundingBox(bbox);
+        int clampedZoom = Math.max(0, Math.min(zoom, MuseumClusterIndex.MAX_ZOOM));
+
+        MuseumViewport<Long> viewport = museumClusterIndex.viewport(bounds[1], bounds[0], bounds[3], bounds[2], clampedZoom);
+        return new MuseumViewport<>(viewport.getZoom(), viewport.getClusters(), findAllInOrder(viewport.getMuseums()));
+    }
+
+    // bbox は「西端経度,南端緯度,東端経度,北端緯度」の順
+    private double[] parseBoundingBox(String bbox) {
+        String[] parts = bbox.split(",");
+        if (parts.length != 4) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bboxは「西端経度,南端緯度,東端経度,北端緯度」で指定してください");
+        }
+        double[] bounds = new double[4];
+        try {
+            for (int i = 0; i < 4; i++) {
+                bounds[i] = Double.parseDouble(parts[i].strip());
+            }
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bboxの値が数値ではありません: " + bbox);
+        }
+        if (bounds[0] > bounds[2] || bounds[1] > bounds[3]) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bboxの範囲が不正です: " + bbox);
+        }
+        return bounds;
+    }
+
+    private List<MuseumDTO> findNearbyInDatabase(double lat, double lon, Double radiusKm, int maxResults) {
+        List<Long> ids = radiusKm == null
+            ? museumRepository.findNearestIds(lat, lon, maxResults)
+            : museumRepository.findNearestIdsWithin(lat, lon, radiusKm * 1000, maxResults);
+
+        // earthdistance の地球半径は GeoDistance と僅かに異なるため、距離と半径判定はインデックス方式と揃える
+        return findAllInOrder(ids).stream()
+            .map(museum -> toNearbyDTO(museum, GeoDistance.haversineKm(lat, lon, museum.getLatitude(), museum.getLongitude())))
+            .filter(dto -> radiusKm == null || dto.getDistance() <= radiusKm)
+            .toList();
+    }
+
+    private MuseumDTO toNearbyDTO(Museum museum, double distance) {
+        return MuseumDTO.builder()
+            .id(museum.getId())
+            .name(museum.getName())
+            .address(museum.getAddress())
+            .prefecture(museum.getPrefecture())
+            .phoneNumber(museum.getPhoneNumber())
+            .exhibition(museum.getExhibition())
+            .museumUrl(museum.getMuseumUrl())
+            .exhibitionUrl(museum.getExhibitionUrl())
+            .startDate(museum.getStartDate())
+            .endDate(museum.getEndDate())
+            .description(museum.getDescription())
+            .openingHours(museum.getOpeningHours())
+            .closingDays(museum.getClosingDays())
+            .admissionFee(museum.getAdmissionFee())
+            .access(museum.getAccess())
+            .latitude(museum.getLatitude())
+            .longitude(museum.getLongitude())
+            .category(museum.getCategory())
+            .distance(distance)
+            .build();
     }
 } 
\ No newline at end of file
@@ -9,19 +9,24 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.UUID;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.example.museumsearch.dto.ViewedMuseumResponse;
+import com.example.museumsearch.event.UserChangedEvent;
 import com.example.museumsearch.mapper.MuseumMapper;
 import com.example.museumsearch.model.Museum;
 import com.example.museumsearch.model.Role;
 import com.example.museumsearch.model.User;
 import com.example.museumsearch.model.ViewedMuseum;
+import com.example.museumsearch.paging.CountShape;
+import com.example.museumsearch.paging.PageCounter;
 import com.example.museumsearch.repository.MuseumRepository;
 import com.example.museumsearch.repository.UserRepository;
 import com.example.museumsearch.repository.ViewedMuseumRepository;
@@ -42,6 +47,8 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final ViewedMuseumRepository viewedMuseumRepository;
     private final JwtProvider jwtProvider;
+    private final PageCounter pageCounter;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public void registerUser(String email, String password, String displayName) {
@@ -54,7 +61,8 @@ public class UserServiceImpl implements UserService {
         user.updateDisplayName(displayName);
         user.updateRoles(Role.USER);
         log.info("ユーザー登録: {}" + user.getEmail());
-        userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(UserChangedEvent.saved(saved.getId(), saved.getEmail()));
     }
 
     @Override
@@ -65,7 +73,9 @@ public class UserServiceImpl implements UserService {
             existingUser.updateDisplayName(updateUser.getUserName());
         }
         log.info("ユーザー情報を更新します: {}", id);
-        return userRepository.save(existingUser);
+        User saved = userRepository.save(existingUser);
+        eventPublisher.publishEvent(UserChangedEvent.saved(saved.getId(), saved.getEmail()));
+        return saved;
     }
 
     @Override
@@ -74,6 +84,7 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new UsernameNotFoundException("ユーザーが見つかりません"));
         user.updateDisplayName(newDisplayName);
         userRepository.save(user);
+        eventPublisher.publishEvent(UserChangedEvent.saved(user.getId(), email));
     }
 
     @Override
@@ -82,16 +93,18 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new UsernameNotFoundException("ユーザーが見つかりません"));
         user.updateEmail(newEmail);
         userRepository.save(user);
+        eventPublisher.publishEvent(UserChangedEvent.saved(user.getId(), currentEmail));
     }
 
     @Override
     public void deleteUserById(Long id) {
-        if (!userRepository.existsById(id)) {
+        User user = userRepository.findById(id).orElseThrow(() -> {
             log.warn("削除対象のユーザーが存在しません: id={}", id);
-            throw new NoSuchElementException("指定されたIDのユーザーが見つかりません" + id);
-        }
+            return new NoSuchElementException("指定されたIDのユーザーが見つかりません" + id);
+        });
         log.info("ユーザーを削除します: id={}", id);
-        userRepository.deleteById(id);
+        userRepository.delete(user);
+        eventPublisher.publishEvent(UserChangedEvent.deleted(id, user.getEmail()));
     }
 
     @Override
@@ -100,6 +113,7 @@ public class UserServiceImpl implements UserService {
             .orElseThrow(() -> new UsernameNotFoundException("ユーザーが見つかりません"));
         log.info("ユーザーを削除します: email={}", email);
         userRepository.delete(user);
+        eventPublisher.publishEvent(UserChangedEvent.deleted(user.getId(), email));
     }
 
     @Override
@@ -108,6 +122,7 @@ public class UserServiceImpl implements UserService {
             .orElseThrow(() -> new UsernameNotFoundException("ユーザーが見つかりません"));
         log.info("ユーザーを削除します: userName={}", userName);
         userRepository.delete(user);
+        eventPublisher.publishEvent(UserChangedEvent.deleted(user.getId(), user.getEmail()));
     }
 
     @Override
@@ -140,7 +155,7 @@ public class UserServiceImpl implements UserService {
         if (!passwordEncoder.matches(rawPassword, user.getPassword())) {
             throw new RuntimeException("パスワードが違います");
         }
-        return jwtProvider.generateToken(user.getEmail(), List.of("ROLE_" + user.getRoles()));
+        return jwtProvider.generateToken(user);
     }
 
     @Override
@@ -162,6 +177,7 @@ public class UserServiceImpl implements UserService {
         log.info("パスワードを変更します: email={}", email);
         user.updatePassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        eventPublisher.publishEvent(UserChangedEvent.saved(user.getId(), email));
     }
 
     @Override
@@ -174,6 +190,8 @@ public class UserServiceImpl implements UserService {
 
         Map<Long, ViewedMuseum> uniqueMap = new LinkedHashMap<>();
         for (ViewedMuseum history : histories) {
+            // アーカイブ済みの美術館は履歴に出さない
+            if (history.getMuseum() == null) continue;
             Long museumId = history.getMuseum().getId();
             if (!uniqueMap.containsKey(museumId)) {
                 uniqueMap.put(museumId, history);
@@ -221,6 +239,7 @@ public class UserServiceImpl implements UserService {
         String imageUrl = "/uploads/profile-images/" + fileName;
         user.updateProfileImageUrl(imageUrl);
         userRepository.save(user);
+        eventPublisher.publishEvent(UserChangedEvent.saved(user.getId(), email));
 
         return imageUrl;
     }
@@ -248,11 +267,22 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public Page<User> getUsers(Pageable pageable) {
-        return userRepository.findAll(pageable);
+        return pageCounter.toPage(sliceUsers(pageable), CountShape.USERS, null, userRepository::count);
+    }
+
+    @Override
+    public Slice<User> sliceUsers(Pageable pageable) {
+        return userRepository.findAllBy(pageable);
     }
 
     @Override
     public Page<User> searchUsers(String keyword, Pageable pageable) {
+        return pageCounter.toPage(sliceUsers(keyword, pageable), CountShape.USERS_BY_KEYWORD, keyword,
+            () -> userRepository.countByKeyword(keyword));
+    }
+
+    @Override
+    public Slice<User> sliceUsers(String keyword, Pageable pageable) {
         return userRepository.searchByKeyword(keyword, pageable);
     }
 }
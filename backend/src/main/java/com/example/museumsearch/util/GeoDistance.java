@@ -0,0 +1,18 @@
+package com.example.museumsearch.util;
+
+public class GeoDistance {
+
+    public static final double EARTH_RADIUS_KM = 6371;
+
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double deltaLatitudeRad = Math.toRadians(lat2 - lat1);
+        double deltaLongitudeRad = Math.toRadians(lon2 - lon1);
+
+        double haversineFormulaValue = Math.sin(deltaLatitudeRad / 2) * Math.sin(deltaLatitudeRad / 2) +
+                                       Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                                       Math.sin(deltaLongitudeRad / 2) * Math.sin(deltaLongitudeRad / 2);
+
+        double centralAngleRad = 2 * Math.atan2(Math.sqrt(haversineFormulaValue), Math.sqrt(1 - haversineFormulaValue));
+        return EARTH_RADIUS_KM * centralAngleRad;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.museumsearch.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+public class JapaneseTextNormalizer {
+
+    private static final char LONG_VOWEL = 'ー';
+
+    private JapaneseTextNormalizer() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null) return null;
+
+        String nfkc = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder normalized = new StringBuilder(nfkc.length());
+        boolean pendingSpace = false;
+        char previous = 0;
+
+        for (int i = 0; i < nfkc.length(); i++) {
+            char c = nfkc.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = normalized.length() > 0;
+                previous = ' ';
+                continue;
+            }
+
+            // 「ミュージアム」「ミュ-ジアム」「ミュジアム」を同一視するため、長音記号とカナの後のダッシュ類は取り除く
+            if (c == LONG_VOWEL || (isDash(c) && isKana(previous))) {
+                previous = LONG_VOWEL;
+                continue;
+            }
+
+            if (pendingSpace) {
+                normalized.append(' ');
+                pendingSpace = false;
+            }
+            char folded = toKatakana(c);
+            normalized.append(folded);
+            previous = folded;
+        }
+        return normalized.toString();
+    }
+
+    private static char toKatakana(char c) {
+        if (c >= 'ぁ' && c <= 'ゖ') return (char) (c + ('ァ' - 'ぁ'));
+        if (c == 'ゝ' || c == 'ゞ') return (char) (c + ('ヽ' - 'ゝ'));
+        return c;
+    }
+
+    private static boolean isKana(char c) {
+        return (c >= 'ァ' && c <= 'ヺ') || c == LONG_VOWEL;
+    }
+
+    private static boolean isDash(char c) {
+        return c == '-' || c == '‐' || c == '‑' || c == '–' || c == '—' || c == '―' || c == '−' || c == '〜' || c == '~';
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.museumsearch.util;
+
+public class LongBloomFilter {
+
+    private static final int HASHES = 4;
+
+    private final long[] bits;
+    private final int mask;
+
+    // 1要素あたり16bit、ハッシュ4個で偽陽性率はおよそ0.2%
+    public LongBloomFilter(int expectedInsertions) {
+        int size = Integer.highestOneBit(Math.max(64, expectedInsertions * 16 - 1)) << 1;
+        this.bits = new long[size >>> 6];
+        this.mask = size - 1;
+    }
+
+    public void add(long value) {
+        long hash = mix(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (h1 + i * h2) & mask;
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    public boolean mightContain(long value) {
+        long hash = mix(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (h1 + i * h2) & mask;
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    private static long mix(long value) {
+        long z = value * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,4 @@
+CREATE EXTENSION IF NOT EXISTS cube;
+CREATE EXTENSION IF NOT EXISTS earthdistance;
+
+CREATE INDEX IF NOT EXISTS idx_museums_location_earth ON museums USING gist (ll_to_earth(latitude, longitude));
@@ -0,0 +1,4 @@
+ALTER TABLE museums DROP CONSTRAINT IF EXISTS museums_status_check;
+ALTER TABLE museums ADD CONSTRAINT museums_status_check CHECK (status IN ('PENDING', 'APPROVED', 'REJECTED', 'ARCHIVED'));
+
+SELECT setval('museum_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM museums), (SELECT last_value FROM museum_seq), 1));
@@ -0,0 +1,16 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+DROP INDEX IF EXISTS idx_museums_name_trgm;
+DROP INDEX IF EXISTS idx_museums_exhibition_trgm;
+DROP INDEX IF EXISTS idx_museums_address_trgm;
+DROP INDEX IF EXISTS idx_museums_description_trgm;
+DROP INDEX IF EXISTS idx_comments_content_trgm;
+DROP INDEX IF EXISTS idx_comments_username_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_museums_name_normalized_trgm ON museums USING gin (name_normalized gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_museums_exhibition_normalized_trgm ON museums USING gin (exhibition_normalized gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_museums_address_normalized_trgm ON museums USING gin (address_normalized gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_museums_description_normalized_trgm ON museums USING gin (description_normalized gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_comments_content_normalized_trgm ON comments USING gin (content_normalized gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_comments_username_normalized_trgm ON comments USING gin (username_normalized gin_trgm_ops);
@@ -0,0 +1,129 @@
+package com.example.museumsearch.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+
+class MuseumCsvParserTest {
+
+	private static final String HEADER = "name,exhibition\n";
+
+	@Test
+	void quotedNewlinesStayInsideOneRecord() {
+		String csv = HEADER
+			+ "\"a\",\"first\nsecond\"\n"
+			+ "\"b\",\"plain\"\n"
+			+ "\"c\",\"x\ny\nz\"\n";
+
+		for (int chunkRecords : new int[] { 1, 2, 10 }) {
+			assertThat(parse(csv, chunkRecords)).extracting(Row::fields).containsExactly(
+				List.of("a", "first\nsecond"),
+				List.of("b", "plain"),
+				List.of("c", "x\ny\nz"));
+		}
+	}
+
+	@Test
+	void escapedQuotesDoNotCloseTheField() {
+		String csv = HEADER
+			+ "\"a\",\"He said \\\"hi\\\"\"\n"
+			+ "\"b\",\"a \"\"doubled\"\" quote\"\n"
+			+ "\"c\",\"escaped quote \\\"\nthen a newline\"\n"
+			+ "\"d\",\"ends with \\\\\"\n"
+			+ "\"e\",\"after\"\n";
+
+		for (int chunkRecords : new int[] { 1, 2, 10 }) {
+			assertThat(parse(csv, chunkRecords)).extracting(Row::fields).containsExactly(
+				List.of("a", "He said \"hi\""),
+				List.of("b", "a \"doubled\" quote"),
+				List.of("c", "escaped quote \"\nthen a newline"),
+				List.of("d", "ends with \\"),
+				List.of("e", "after"));
+		}
+	}
+
+	@Test
+	void finalRecordWithoutTrailingNewlineIsKept() {
+		String csv = HEADER
+			+ "\"a\",\"x\"\n"
+			+ "\"b\",\"last\nrecord\"";
+
+		for (int chunkRecords : new int[] { 1, 2, 10 }) {
+			List<Row> rows = parse(csv, chunkRecords);
+			assertThat(rows).extracting(Row::fields).containsExactly(
+				List.of("a", "x"),
+				List.of("b", "last\nrecord"));
+			assertThat(rows).extracting(Row::line).containsExactly(2L, 3L);
+		}
+	}
+
+	@Test
+	void lineNumbersPointAtRecordStartsAcrossChunks() {
+		String csv = HEADER
+			+ "\"a\",\"x\"\n"
+			+ "\"b\",\"multi\nline\"\n"
+			+ "\"c\",\"y\"\n"
+			+ "\"d\",\"three\nline\nvalue\"\n"
+			+ "\"e\",\"z\"\n";
+
+		for (int chunkRecords : new int[] { 1, 2, 3, 10 }) {
+			assertThat(parse(csv, chunkRecords)).extracting(Row::line).containsExactly(2L, 3L, 5L, 6L, 9L);
+		}
+	}
+
+	// 同梱のカタログは読み込みバッファより大きいので、バッファの境目も跨ぐ
+	@Test
+	void agreesWithSequentialParseOfBundledCatalog() throws Exception {
+		List<Row> expected = new ArrayList<>();
+		try (CSVReader reader = new CSVReaderBuilder(catalog()).withCSVParser(MuseumCsvParser.csvParser()).build()) {
+			reader.readNext();
+			while (true) {
+				long line = reader.getLinesRead() + 1;
+				String[] fields = reader.readNext();
+				if (fields == null) break;
+				expected.add(new Row(line, List.of(fields)));
+			}
+		}
+		assertThat(expected).isNotEmpty();
+
+		for (int chunkRecords : new int[] { 1, 7, 1000 }) {
+			assertThat(parse(catalog(), chunkRecords)).containsExactlyElementsOf(expected);
+		}
+	}
+
+	private static Reader catalog() {
+		return new InputStreamReader(MuseumCsvParserTest.class.getResourceAsStream("/data/museums.csv"), StandardCharsets.UTF_8);
+	}
+
+	private static List<Row> parse(String csv, int chunkRecords) {
+		return parse(new StringReader(csv), chunkRecords);
+	}
+
+	private static List<Row> parse(Reader source, int chunkRecords) {
+		MuseumCsvParser parser = new MuseumCsvParser();
+		ReflectionTestUtils.setField(parser, "parallelism", 4);
+		ReflectionTestUtils.setField(parser, "chunkRecords", chunkRecords);
+		parser.init();
+		try {
+			List<Row> rows = new ArrayList<>();
+			parser.parse(source, (fields, line) -> new Row(line, List.of(fields)), rows::add);
+			return rows;
+		} finally {
+			parser.close();
+		}
+	}
+
+	private record Row(long line, List<String> fields) {
+	}
+}
@@ -0,0 +1,110 @@
+package com.example.museumsearch.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.museumsearch.dto.MuseumCursor;
+import com.example.museumsearch.model.Museum;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class MuseumRepositoryTest {
+
+	private static final String PREFECTURE = "検証県";
+
+	@Autowired
+	private MuseumRepository museumRepository;
+
+	@Test
+	void prefectureSeekWalksDatedRowsThenUndatedRows() {
+		Museum late = save("c", PREFECTURE, "美術館", LocalDate.of(2025, 3, 1));
+		Museum sameDayFirst = save("b1", PREFECTURE, "美術館", LocalDate.of(2025, 2, 1));
+		Museum sameDaySecond = save("b2", PREFECTURE, "美術館", LocalDate.of(2025, 2, 1));
+		Museum sameDayThird = save("b3", PREFECTURE, "美術館", LocalDate.of(2025, 2, 1));
+		Museum early = save("a", PREFECTURE, "美術館", LocalDate.of(2025, 1, 1));
+		Museum undatedFirst = save("u1", PREFECTURE, "美術館", null);
+		Museum undatedSecond = save("u2", PREFECTURE, "美術館", null);
+		save("other", "別の県", "美術館", LocalDate.of(2025, 1, 15));
+
+		List<Long> expected = List.of(early.getId(), sameDayFirst.getId(), sameDaySecond.getId(), sameDayThird.getId(),
+			late.getId(), undatedFirst.getId(), undatedSecond.getId());
+		assertThat(walkPrefecture(2)).isEqualTo(expected);
+		assertThat(walkPrefecture(3)).isEqualTo(expected);
+		assertThat(walkPrefecture(10)).isEqualTo(expected);
+	}
+
+	@Test
+	void datedSeekStopsAtLastDatedRowAndUndatedSeekResumesById() {
+		Museum dated = save("dated", PREFECTURE, "美術館", LocalDate.of(2025, 1, 1));
+		Museum undatedFirst = save("u1", PREFECTURE, "美術館", null);
+		Museum undatedSecond = save("u2", PREFECTURE, "美術館", null);
+
+		List<Museum> dateds = museumRepository.findByPrefectureAfter(PREFECTURE, MuseumCursor.FIRST.getStartDate(), 0L, Limit.of(10));
+		assertThat(dateds).extracting(Museum::getId).containsExactly(dated.getId());
+		assertThat(museumRepository.findByPrefectureAfter(PREFECTURE, dated.getStartDate(), dated.getId(), Limit.of(10))).isEmpty();
+
+		assertThat(museumRepository.findUndatedByPrefectureAfter(PREFECTURE, 0L, Limit.of(10)))
+			.extracting(Museum::getId).containsExactly(undatedFirst.getId(), undatedSecond.getId());
+		assertThat(museumRepository.findUndatedByPrefectureAfter(PREFECTURE, undatedFirst.getId(), Limit.of(10)))
+			.extracting(Museum::getId).containsExactly(undatedSecond.getId());
+	}
+
+	@Test
+	void categorySeekMatchesCompoundCategoriesInOrder() {
+		Museum compound = save("compound", PREFECTURE, "美術館・検証庭園", LocalDate.of(2025, 1, 2));
+		Museum plain = save("plain", PREFECTURE, "検証庭園", LocalDate.of(2025, 1, 1));
+		save("unrelated", PREFECTURE, "美術館", LocalDate.of(2025, 1, 1));
+
+		List<Museum> first = museumRepository.findByCategoryAfter("検証庭園", MuseumCursor.FIRST.getStartDate(), 0L, Limit.of(1));
+		assertThat(first).extracting(Museum::getId).containsExactly(plain.getId());
+
+		List<Museum> second = museumRepository.findByCategoryAfter("検証庭園", plain.getStartDate(), plain.getId(), Limit.of(1));
+		assertThat(second).extracting(Museum::getId).containsExactly(compound.getId());
+	}
+
+	// MuseumServiceImpl.scroll と同じく、開始日ありの行を読み切ってから開始日なしの行へ移る
+	private List<Long> walkPrefecture(int size) {
+		List<Long> ids = new ArrayList<>();
+		LocalDate startDate = MuseumCursor.FIRST.getStartDate();
+		long id = 0L;
+		while (true) {
+			List<Museum> page = museumRepository.findByPrefectureAfter(PREFECTURE, startDate, id, Limit.of(size));
+			if (page.isEmpty()) break;
+			assertThat(page).allSatisfy(museum -> assertThat(museum.getStartDate()).isNotNull());
+			page.forEach(museum -> ids.add(museum.getId()));
+			Museum last = page.get(page.size() - 1);
+			startDate = last.getStartDate();
+			id = last.getId();
+		}
+
+		id = 0L;
+		while (true) {
+			List<Museum> page = museumRepository.findUndatedByPrefectureAfter(PREFECTURE, id, Limit.of(size));
+			if (page.isEmpty()) break;
+			page.forEach(museum -> ids.add(museum.getId()));
+			id = page.get(page.size() - 1).getId();
+		}
+		return ids;
+	}
+
+	private Museum save(String name, String prefecture, String category, LocalDate startDate) {
+		return museumRepository.save(Museum.builder()
+			.name("検証用 " + name)
+			.address("東京都")
+			.prefecture(prefecture)
+			.category(category)
+			.startDate(startDate)
+			.build());
+	}
+}
@@ -0,0 +1,81 @@
+package com.example.museumsearch.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CoordinateGridTest {
+
+	private static final int MUSEUMS = 2000;
+
+	private final DistanceKernel kernel = DistanceKernels.get();
+	private CoordinateGrid grid;
+	private CoordinateStore everything;
+
+	@BeforeEach
+	void setUp() {
+		grid = new CoordinateGrid(kernel);
+		everything = new CoordinateStore(kernel, MUSEUMS);
+		Random random = new Random(42);
+		for (long id = 1; id <= MUSEUMS; id++) {
+			double latitude = 31 + random.nextDouble() * 12;
+			double longitude = 129 + random.nextDouble() * 17;
+			grid.add(id, latitude, longitude);
+			everything.add(id, latitude, longitude);
+		}
+	}
+
+	@Test
+	void agreesWithFullScanAroundTheData() {
+		Random random = new Random(7);
+		for (int i = 0; i < 500; i++) {
+			double lat = 30 + random.nextDouble() * 14;
+			double lon = 128 + random.nextDouble() * 19;
+			assertSameNeighbors(lat, lon, null, 10);
+			assertSameNeighbors(lat, lon, 5.0, 10);
+			assertSameNeighbors(lat, lon, 30.0, null);
+		}
+	}
+
+	// データから遠い地点や極の近くでも、リングを広げ続けずに全件走査へ切り替える
+	@Test
+	void queriesFarFromTheDataFinishQuickly() {
+		assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+			for (double[] point : new double[][] { { 0, 0 }, { 89.99, 0 }, { -89.99, -170 }, { 35, -60 } }) {
+				assertSameNeighbors(point[0], point[1], null, 10);
+				assertSameNeighbors(point[0], point[1], 20000.0, 3);
+				assertSameNeighbors(point[0], point[1], 100.0, 10);
+			}
+		});
+	}
+
+	@Test
+	void removedMuseumsAreNotReturned() {
+		List<MuseumGeoIndex.Neighbor> before = grid.nearest(35.68, 139.76, null, 3);
+		grid.remove(before.get(0).getMuseumId());
+		everything.remove(before.get(0).getMuseumId());
+
+		assertThat(grid.size()).isEqualTo(MUSEUMS - 1);
+		assertThat(grid.nearest(35.68, 139.76, null, 3)).extracting(MuseumGeoIndex.Neighbor::getMuseumId)
+			.doesNotContain(before.get(0).getMuseumId())
+			.contains(before.get(1).getMuseumId(), before.get(2).getMuseumId());
+		assertSameNeighbors(35.68, 139.76, null, 3);
+	}
+
+	private void assertSameNeighbors(double lat, double lon, Double radiusKm, Integer limit) {
+		NearestCollector expected = new NearestCollector(limit == null ? Integer.MAX_VALUE : limit,
+			radiusKm == null ? Double.POSITIVE_INFINITY : radiusKm);
+		everything.collect(new CoordinateStore.Query(lat, lon), expected);
+
+		assertThat(grid.nearest(lat, lon, radiusKm, limit))
+			.extracting(MuseumGeoIndex.Neighbor::getMuseumId)
+			.as("lat=%s lon=%s radius=%s limit=%s", lat, lon, radiusKm, limit)
+			.containsExactlyElementsOf(expected.toNeighbors().stream().map(MuseumGeoIndex.Neighbor::getMuseumId).toList());
+	}
+}
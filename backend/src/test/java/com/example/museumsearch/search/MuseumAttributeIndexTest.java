@@ -0,0 +1,148 @@
+package com.example.museumsearch.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import com.example.museumsearch.dto.MuseumFacets;
+import com.example.museumsearch.dto.MuseumFilter;
+import com.example.museumsearch.event.MuseumChangedEvent;
+import com.example.museumsearch.model.Museum;
+import com.example.museumsearch.repository.MuseumRepository;
+
+class MuseumAttributeIndexTest {
+
+	private static final LocalDate TODAY = LocalDate.now();
+
+	private final MuseumRepository museumRepository = mock(MuseumRepository.class);
+
+	@Test
+	void facetsCountPrefecturesCategoriesAndRunningMuseums() {
+		MuseumAttributeIndex index = loaded(List.of(
+			museum(1L, "東京", "美術館・博物館", TODAY.minusDays(3), TODAY.plusDays(3)),
+			museum(2L, "東京", "美術館", TODAY.minusDays(10), TODAY.minusDays(1)),
+			museum(3L, "京都", "博物館", TODAY.minusDays(1), null),
+			museum(4L, "大阪", "美術館", null, null)));
+
+		MuseumFacets facets = index.facets();
+		assertThat(facets.getPrefectures()).containsExactly(
+			entry("東京", 2L), entry("京都", 1L), entry("大阪", 1L));
+		assertThat(facets.getCategories()).containsExactly(entry("美術館", 3L), entry("博物館", 2L));
+		assertThat(facets.getRunning()).isEqualTo(2);
+
+		MuseumFacets hits = index.facets(List.of(2L, 3L));
+		assertThat(hits.getPrefectures()).containsExactly(entry("京都", 1L), entry("東京", 1L));
+		assertThat(hits.getRunning()).isEqualTo(1);
+	}
+
+	// 会期が月と1日でも重なれば該当する。開始日が未定なら対象外、終了日が未定なら開始後ずっと開催中
+	@Test
+	void monthFilterUsesOverlappingExhibitionPeriods() {
+		MuseumAttributeIndex index = loaded(List.of(
+			museum(1L, "東京", "美術館", LocalDate.of(2025, 1, 10), LocalDate.of(2025, 1, 20)),
+			museum(2L, "東京", "美術館", LocalDate.of(2024, 12, 1), LocalDate.of(2025, 1, 31)),
+			museum(3L, "東京", "美術館", LocalDate.of(2025, 2, 1), LocalDate.of(2025, 3, 1)),
+			museum(4L, "東京", "美術館", LocalDate.of(2024, 6, 1), null),
+			museum(5L, "東京", "美術館", null, LocalDate.of(2025, 2, 15))));
+
+		assertThat(filter(index, MuseumFilter.builder().month(YearMonth.of(2025, 1)).build())).containsExactly(1, 2, 4);
+		assertThat(filter(index, MuseumFilter.builder().month(YearMonth.of(2025, 2)).build())).containsExactly(3, 4);
+		assertThat(filter(index, MuseumFilter.builder().month(YearMonth.of(2024, 5)).build())).isEmpty();
+		assertThat(filter(index, MuseumFilter.builder().month(YearMonth.of(2024, 12)).month(YearMonth.of(2025, 3)).build()))
+			.containsExactly(2, 3, 4);
+	}
+
+	@Test
+	void filtersCombineAcrossAttributesAndWithKeywordHits() {
+		MuseumAttributeIndex index = loaded(List.of(
+			museum(1L, "東京", "美術館・博物館", TODAY.minusDays(1), TODAY.plusDays(1)),
+			museum(2L, "東京", "博物館", TODAY.minusDays(1), TODAY.plusDays(1)),
+			museum(3L, "京都", "美術館", TODAY.minusDays(1), TODAY.plusDays(1)),
+			museum(4L, "東京", "美術館", TODAY.plusDays(5), TODAY.plusDays(9))));
+
+		MuseumFilter tokyoArt = MuseumFilter.builder().prefecture("東京").category("美術館").build();
+		assertThat(filter(index, tokyoArt)).containsExactly(1, 4);
+		assertThat(filter(index, MuseumFilter.builder().prefecture("東京").category("美術館").running(true).build())).containsExactly(1);
+		assertThat(index.filter(tokyoArt, List.of(2L, 4L)).toArray()).containsExactly(4);
+	}
+
+	@Test
+	void changesReplaceThePreviousAttributes() {
+		MuseumAttributeIndex index = loaded(List.of(museum(1L, "東京", "美術館", TODAY.minusDays(1), TODAY.plusDays(1))));
+
+		index.onMuseumChanged(MuseumChangedEvent.saved(museum(1L, "京都", "博物館", TODAY.plusDays(1), TODAY.plusDays(2))));
+		MuseumFacets facets = index.facets();
+		assertThat(facets.getPrefectures()).containsExactly(entry("京都", 1L));
+		assertThat(facets.getCategories()).containsExactly(entry("博物館", 1L));
+		assertThat(facets.getRunning()).isZero();
+
+		index.onMuseumChanged(MuseumChangedEvent.deleted(1L));
+		assertThat(index.facets().getPrefectures()).isEmpty();
+	}
+
+	// 該当件数によって切り出し・走査・並べ替えを使い分けるが、どれも同じ順序になる
+	@Test
+	void pagesAgreeWithSortingTheHitsWhateverTheirDensity() {
+		List<Museum> museums = new ArrayList<>();
+		for (long id = 1; id <= 200; id++) {
+			LocalDate startDate = id % 11 == 0 ? null : LocalDate.of(2025, 1, 1).plusDays(id * 37 % 90);
+			museums.add(museum(id, id % 3 == 0 ? "京都" : "東京", id % 40 == 0 ? "庭園" : "美術館", startDate, null));
+		}
+		MuseumAttributeIndex index = loaded(museums);
+		Sort sort = Sort.by("startDate");
+		Comparator<Museum> expectedOrder = Comparator
+			.comparing(Museum::getStartDate, Comparator.nullsLast(Comparator.naturalOrder()))
+			.thenComparing(Museum::getId);
+
+		for (MuseumFilter filter : List.of(
+				MuseumFilter.builder().build(),
+				MuseumFilter.builder().prefecture("東京").build(),
+				MuseumFilter.builder().category("庭園").build())) {
+			RoaringBitmap matched = index.filter(filter, null);
+			List<Long> expected = museums.stream()
+				.filter(museum -> matched.contains(Math.toIntExact(museum.getId())))
+				.sorted(expectedOrder)
+				.map(Museum::getId)
+				.toList();
+
+			List<Long> paged = new ArrayList<>();
+			for (int page = 0; page * 7 < expected.size(); page++) {
+				paged.addAll(index.page(matched, PageRequest.of(page, 7, sort)).getContent());
+			}
+			assertThat(paged).as("filter=%s", filter).containsExactlyElementsOf(expected);
+			assertThat(index.page(matched, PageRequest.of(0, 7, sort)).getTotalElements()).isEqualTo(expected.size());
+		}
+	}
+
+	private MuseumAttributeIndex loaded(List<Museum> museums) {
+		when(museumRepository.findAll()).thenReturn(museums);
+		MuseumAttributeIndex index = new MuseumAttributeIndex(museumRepository);
+		index.load();
+		return index;
+	}
+
+	private static int[] filter(MuseumAttributeIndex index, MuseumFilter filter) {
+		return index.filter(filter, null).toArray();
+	}
+
+	private static Map.Entry<String, Long> entry(String key, long value) {
+		return Map.entry(key, value);
+	}
+
+	private static Museum museum(long id, String prefecture, String category, LocalDate startDate, LocalDate endDate) {
+		return Museum.builder().id(id).name("美術館" + id).address(prefecture).prefecture(prefecture).category(category)
+			.startDate(startDate).endDate(endDate).build();
+	}
+}
@@ -0,0 +1,88 @@
+package com.example.museumsearch.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.museumsearch.dto.MuseumCluster;
+import com.example.museumsearch.dto.MuseumViewport;
+import com.example.museumsearch.event.MuseumChangedEvent;
+import com.example.museumsearch.model.Museum;
+import com.example.museumsearch.repository.MuseumRepository;
+
+class MuseumClusterIndexTest {
+
+	private final MuseumRepository museumRepository = mock(MuseumRepository.class);
+	private MuseumClusterIndex index;
+
+	@BeforeEach
+	void setUp() {
+		when(museumRepository.findAll()).thenReturn(List.of(
+			museum(1L, 35.680, 139.760),
+			museum(2L, 35.690, 139.770),
+			museum(3L, 35.670, 139.750),
+			museum(4L, 34.690, 135.500),
+			museum(5L, 34.700, 135.510),
+			museum(6L, 43.060, 141.350),
+			Museum.builder().id(7L).name("美術館7").address("東京都").build()));
+		index = new MuseumClusterIndex(museumRepository);
+		index.load();
+	}
+
+	// 同じセルの美術館は件数と重心にまとめ、1件だけのセルは美術館として返す
+	@Test
+	void nearbyMuseumsCollapseIntoClustersWithTheirCentroid() {
+		MuseumViewport<Long> viewport = index.viewport(30, 128, 46, 146, 5);
+
+		assertThat(viewport.getClusters()).extracting(MuseumCluster::getCount).containsExactly(3, 2);
+		MuseumCluster tokyo = viewport.getClusters().get(0);
+		assertThat(tokyo.getLatitude()).isCloseTo(35.680, within(1e-9));
+		assertThat(tokyo.getLongitude()).isCloseTo(139.760, within(1e-9));
+		assertThat(viewport.getMuseums()).containsExactly(6L);
+	}
+
+	// 最も細かいレベルより拡大すると、表示範囲に入る美術館だけを個別に返す
+	@Test
+	void deepZoomListsOnlyMuseumsInsideTheViewport() {
+		MuseumViewport<Long> viewport = index.viewport(35.675, 139.755, 35.695, 139.775, 17);
+
+		assertThat(viewport.getClusters()).isEmpty();
+		assertThat(viewport.getMuseums()).containsExactly(1L, 2L);
+	}
+
+	@Test
+	void rejectsViewportsWiderThanTheTileLimit() {
+		assertThatThrownBy(() -> index.viewport(30, 128, 46, 146, 10))
+			.isInstanceOfSatisfying(ResponseStatusException.class,
+				e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+		assertThat(index.viewport(35, 139, 36, 140, 10).getMuseums()).isNotEmpty();
+	}
+
+	// 移動・削除した美術館は元のセルの件数と重心から差し引く
+	@Test
+	void changesMoveMuseumsBetweenCells() {
+		index.onMuseumChanged(MuseumChangedEvent.saved(museum(3L, 34.695, 135.505)));
+		index.onMuseumChanged(MuseumChangedEvent.deleted(6L));
+
+		MuseumViewport<Long> viewport = index.viewport(30, 128, 46, 146, 5);
+		assertThat(viewport.getClusters()).extracting(MuseumCluster::getCount).containsExactly(3, 2);
+		MuseumCluster osaka = viewport.getClusters().get(0);
+		assertThat(osaka.getLatitude()).isCloseTo(34.695, within(1e-9));
+		assertThat(osaka.getLongitude()).isCloseTo(135.505, within(1e-9));
+		assertThat(viewport.getClusters().get(1).getLatitude()).isCloseTo(35.685, within(1e-9));
+		assertThat(viewport.getMuseums()).isEmpty();
+	}
+
+	private static Museum museum(long id, double latitude, double longitude) {
+		return Museum.builder().id(id).name("美術館" + id).address("東京都").latitude(latitude).longitude(longitude).build();
+	}
+}
@@ -0,0 +1,147 @@
+package com.example.museumsearch.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.museumsearch.event.MuseumChangedEvent;
+import com.example.museumsearch.model.Museum;
+import com.example.museumsearch.model.MuseumStatus;
+import com.example.museumsearch.repository.MuseumRepository;
+
+class MuseumProximityGraphTest {
+
+	private final MuseumRepository museumRepository = mock(MuseumRepository.class);
+	private final List<MuseumProximityGraph> graphs = new ArrayList<>();
+
+	@AfterEach
+	void tearDown() {
+		graphs.forEach(MuseumProximityGraph::close);
+	}
+
+	// 承認前や却下された美術館は、公開ページの近隣に出さない
+	@Test
+	void onlyApprovedMuseumsAreNeighbors() throws Exception {
+		List<Museum> museums = List.of(
+			museum(1L, 35.00, 139.00, MuseumStatus.APPROVED),
+			museum(2L, 35.01, 139.00, MuseumStatus.PENDING),
+			museum(3L, 35.02, 139.00, MuseumStatus.REJECTED),
+			museum(4L, 35.03, 139.00, MuseumStatus.APPROVED));
+		MuseumProximityGraph graph = loaded(museums);
+
+		assertThat(neighborIds(graph, 1L)).containsExactly(4L);
+		assertThat(neighborIds(graph, 2L)).isEmpty();
+		assertThat(neighborIds(graph, 3L)).isEmpty();
+	}
+
+	@Test
+	void museumsJoinAndLeaveWithTheirStatus() throws Exception {
+		Museum pending = museum(2L, 35.01, 139.00, MuseumStatus.PENDING);
+		Museum approved = museum(4L, 35.03, 139.00, MuseumStatus.APPROVED);
+		MuseumProximityGraph graph = loaded(List.of(museum(1L, 35.00, 139.00, MuseumStatus.APPROVED), pending, approved));
+
+		pending.updateStatus(MuseumStatus.APPROVED);
+		graph.onMuseumChanged(MuseumChangedEvent.saved(pending));
+		awaitUpdates(graph);
+		assertThat(neighborIds(graph, 1L)).containsExactly(2L, 4L);
+
+		approved.updateStatus(MuseumStatus.REJECTED);
+		graph.onMuseumChanged(MuseumChangedEvent.saved(approved));
+		awaitUpdates(graph);
+		assertThat(neighborIds(graph, 1L)).containsExactly(2L);
+		assertThat(neighborIds(graph, 4L)).isEmpty();
+	}
+
+	// 読み直したカタログから外れた美術館は、前回の構築から残さない
+	@Test
+	void reloadDropsMuseumsThatAreNoLongerApproved() throws Exception {
+		Museum second = museum(2L, 35.01, 139.00, MuseumStatus.APPROVED);
+		MuseumProximityGraph graph = loaded(List.of(museum(1L, 35.00, 139.00, MuseumStatus.APPROVED), second));
+		assertThat(neighborIds(graph, 1L)).containsExactly(2L);
+
+		second.updateStatus(MuseumStatus.ARCHIVED);
+		graph.load();
+		awaitUpdates(graph);
+
+		assertThat(neighborIds(graph, 1L)).isEmpty();
+		assertThat(neighborIds(graph, 2L)).isEmpty();
+	}
+
+	// 追加・移動・削除・承認の取り消しを差分で反映した結果が、同じ美術館から作り直したグラフと一致する
+	@Test
+	void incrementalUpdatesMatchAFullRebuild() throws Exception {
+		Random random = new Random(11);
+		Map<Long, Museum> current = new HashMap<>();
+		for (long id = 1; id <= 300; id++) {
+			current.put(id, randomMuseum(random, id, MuseumStatus.APPROVED));
+		}
+		MuseumProximityGraph graph = loaded(List.copyOf(current.values()));
+
+		long nextId = 301;
+		for (int i = 0; i < 400; i++) {
+			long id = 1 + random.nextInt((int) nextId - 1);
+			int operation = random.nextInt(5);
+			if (operation == 0) {
+				current.put(nextId, randomMuseum(random, nextId, MuseumStatus.APPROVED));
+				graph.onMuseumChanged(MuseumChangedEvent.saved(current.get(nextId++)));
+			} else if (operation == 1) {
+				current.remove(id);
+				graph.onMuseumChanged(MuseumChangedEvent.deleted(id));
+			} else if (operation == 2) {
+				current.put(id, randomMuseum(random, id, random.nextBoolean() ? MuseumStatus.APPROVED : MuseumStatus.PENDING));
+				graph.onMuseumChanged(MuseumChangedEvent.saved(current.get(id)));
+			} else {
+				current.put(id, randomMuseum(random, id, MuseumStatus.APPROVED));
+				graph.onMuseumChanged(MuseumChangedEvent.saved(current.get(id)));
+			}
+		}
+		awaitUpdates(graph);
+
+		MuseumProximityGraph rebuilt = loaded(List.copyOf(current.values()));
+		for (long id = 1; id < nextId; id++) {
+			assertThat(neighborIds(graph, id)).as("id=%s", id).containsExactlyElementsOf(neighborIds(rebuilt, id));
+		}
+	}
+
+		private MuseumProximityGraph loaded(List<Museum> museums) throws Exception {
+		when(museumRepository.findAll()).thenReturn(museums);
+		MuseumProximityGraph graph = new MuseumProximityGraph(museumRepository);
+		graphs.add(graph);
+		graph.load();
+		awaitUpdates(graph);
+		return graph;
+	}
+
+	// 更新は専用スレッドで直列に処理されるので、後ろに積んだ空の処理が終われば反映済み
+	private static void awaitUpdates(MuseumProximityGraph graph) throws Exception {
+		ExecutorService executor = (ExecutorService) ReflectionTestUtils.getField(graph, "updateExecutor");
+		executor.submit(() -> { }).get();
+	}
+
+	private static List<Long> neighborIds(MuseumProximityGraph graph, long id) {
+		return graph.neighborsOf(id).stream().map(MuseumGeoIndex.Neighbor::getMuseumId).toList();
+	}
+
+	// 大半は本州付近に置き、遠く離れた島も混ぜて近隣が遠方まで届く美術館も作る
+	private static Museum randomMuseum(Random random, long id, MuseumStatus status) {
+		if (random.nextInt(20) == 0) {
+			return museum(id, 24 + random.nextDouble() * 3, 122 + random.nextDouble() * 20, status);
+		}
+		return museum(id, 33 + random.nextDouble() * 4, 132 + random.nextDouble() * 8, status);
+	}
+
+	static Museum museum(long id, double latitude, double longitude, MuseumStatus status) {
+		return Museum.builder().id(id).name("美術館" + id).address("東京都").latitude(latitude).longitude(longitude).status(status).build();
+	}
+}
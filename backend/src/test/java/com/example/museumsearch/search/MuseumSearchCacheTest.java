@@ -0,0 +1,175 @@
+package com.example.museumsearch.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import com.example.museumsearch.event.MuseumChangedEvent;
+import com.example.museumsearch.event.MuseumsImportedEvent;
+import com.example.museumsearch.model.Museum;
+import com.example.museumsearch.repository.MuseumRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MuseumSearchCacheTest {
+
+	private static final Pageable FIRST_PAGE = PageRequest.of(0, 10);
+
+	private final Map<Long, Museum> stored = new ConcurrentHashMap<>();
+
+	private AnnotationConfigApplicationContext context;
+	private MuseumSearchIndex index;
+	private MuseumSearchCache cache;
+
+	@BeforeEach
+	void setUp() {
+		context = new AnnotationConfigApplicationContext();
+		context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance());
+		context.registerBean(MuseumRepository.class, () -> mock(MuseumRepository.class));
+		context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+		context.register(MuseumSearchIndex.class, MuseumSearchCache.class, SearchDuringUpdate.class);
+		context.refresh();
+
+		index = context.getBean(MuseumSearchIndex.class);
+		cache = context.getBean(MuseumSearchCache.class);
+		context.getBean(SearchDuringUpdate.class).test = this;
+
+		save(museum(1L, "東京国立博物館"));
+		context.publishEvent(new MuseumsImportedEvent(List.copyOf(stored.values())));
+	}
+
+	@AfterEach
+	void tearDown() {
+		context.close();
+	}
+
+	// キャッシュの破棄直後に走った検索も、更新後のインデックスを見てからキャッシュに載せる
+	@Test
+	void searchInterleavedWithUpdateDoesNotCacheStaleResults() {
+		String keyword = MuseumSearchCache.normalize("博物館");
+		assertThat(ids(search(keyword))).containsExactly(1L);
+
+		SearchDuringUpdate probe = context.getBean(SearchDuringUpdate.class);
+		probe.keyword = keyword;
+		context.publishEvent(MuseumChangedEvent.saved(save(museum(2L, "上野の森博物館"))));
+
+		assertThat(ids(probe.seen)).containsExactlyInAnyOrder(1L, 2L);
+		assertThat(ids(cache.get(keyword, FIRST_PAGE, collectHits -> {
+			throw new AssertionError("キャッシュに載っているはず");
+		}))).containsExactlyInAnyOrder(1L, 2L);
+	}
+
+	// 変更前後どちらでもヒットしないキーワードは、キャッシュに残す
+	@Test
+	void changesEvictOnlyKeywordsTheyCanAffect() {
+		String museums = MuseumSearchCache.normalize("博物館");
+		String gallery = MuseumSearchCache.normalize("美術館");
+		search(museums);
+		assertThat(ids(search(gallery))).isEmpty();
+
+		context.publishEvent(MuseumChangedEvent.saved(save(museum(2L, "上野の森美術館"))));
+
+		assertThat(isCached(museums)).isTrue();
+		assertThat(isCached(gallery)).isFalse();
+		assertThat(ids(search(gallery))).containsExactly(2L);
+	}
+
+	// 名前が変わってヒットしなくなった美術館も、以前のヒット集合から破棄対象を見つける
+	@Test
+	void updatesAndDeletesEvictKeywordsThatUsedToMatch() {
+		String museums = MuseumSearchCache.normalize("博物館");
+		String forest = MuseumSearchCache.normalize("上野の森");
+		search(museums);
+		context.publishEvent(MuseumChangedEvent.saved(save(museum(2L, "上野の森博物館"))));
+		search(museums);
+		search(forest);
+
+		context.publishEvent(MuseumChangedEvent.saved(save(museum(1L, "東京国立美術館"))));
+		assertThat(isCached(museums)).isFalse();
+		assertThat(isCached(forest)).isTrue();
+		assertThat(ids(search(museums))).containsExactly(2L);
+
+		stored.remove(2L);
+		context.publishEvent(MuseumChangedEvent.deleted(2L));
+		assertThat(isCached(museums)).isFalse();
+		assertThat(isCached(forest)).isFalse();
+	}
+
+	@Test
+	void importsEvictEveryKeyword() {
+		String museums = MuseumSearchCache.normalize("博物館");
+		String unrelated = MuseumSearchCache.normalize("水族館");
+		search(museums);
+		search(unrelated);
+
+		context.publishEvent(new MuseumsImportedEvent(List.of(save(museum(3L, "しながわ水族館")))));
+
+		assertThat(isCached(museums)).isFalse();
+		assertThat(isCached(unrelated)).isFalse();
+	}
+
+	// 確かめたついでに検索し直して載せるので、続けて同じキーワードを確かめると true になる
+	private boolean isCached(String keyword) {
+		AtomicBoolean loaded = new AtomicBoolean();
+		search(keyword, loaded);
+		return !loaded.get();
+	}
+
+	Page<Museum> search(String keyword) {
+		return search(keyword, new AtomicBoolean());
+	}
+
+	private Page<Museum> search(String keyword, AtomicBoolean loaded) {
+		return cache.get(keyword, FIRST_PAGE, collectHits -> {
+			loaded.set(true);
+			MuseumSearchIndex.Result result = index.search(keyword, FIRST_PAGE, collectHits);
+			List<Museum> museums = result.getPage().getContent().stream().map(stored::get).toList();
+			return new MuseumSearchCache.Loaded(
+				new PageImpl<>(museums, FIRST_PAGE, result.getPage().getTotalElements()), result.getHits());
+		});
+	}
+
+	private Museum save(Museum museum) {
+		stored.put(museum.getId(), museum);
+		return museum;
+	}
+
+	private static Museum museum(long id, String name) {
+		return Museum.builder().id(id).name(name).address("東京都台東区").build();
+	}
+
+	private static List<Long> ids(Page<Museum> page) {
+		return page.getContent().stream().map(Museum::getId).toList();
+	}
+
+	// 検索キャッシュの破棄と同じイベントの直後に割り込む検索
+	static class SearchDuringUpdate {
+
+		MuseumSearchCacheTest test;
+		String keyword;
+		Page<Museum> seen;
+
+		@Order(MuseumSearchIndex.LISTENER_ORDER + 2)
+		@EventListener
+		public void onMuseumChanged(MuseumChangedEvent event) {
+			if (keyword != null) seen = test.search(keyword);
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package com.example.museumsearch.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.museumsearch.dto.MuseumCursor;
+import com.example.museumsearch.event.MuseumChangedEvent;
+import com.example.museumsearch.event.MuseumsImportedEvent;
+import com.example.museumsearch.model.Museum;
+import com.example.museumsearch.paging.CountMode;
+import com.example.museumsearch.repository.MuseumRepository;
+
+class MuseumSearchIndexTest {
+
+	private MuseumSearchIndex index;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		index = new MuseumSearchIndex(mock(MuseumRepository.class));
+		ReflectionTestUtils.setField(index, "countMode", CountMode.EXACT);
+		ReflectionTestUtils.setField(index, "totalHitsThreshold", 1000);
+		index.init();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		index.close();
+	}
+
+	// 形態素解析で語の途中になる部分文字列も、バイグラムのフレーズで拾う
+	@Test
+	void partialWordsFallBackToBigrams() {
+		add(museum(1L, "国立西洋美術館", "東京都台東区上野公園7-7", null));
+		add(museum(2L, "東京国立博物館", "東京都台東区上野公園13-9", null));
+
+		assertThat(index.searchIds("西洋美")).containsExactly(1L);
+		assertThat(index.searchIds("立西")).containsExactly(1L);
+		assertThat(index.searchIds("上野公園")).containsExactlyInAnyOrder(1L, 2L);
+		assertThat(index.searchIds("存在しない語")).isEmpty();
+	}
+
+	// 同じ語でも、名称 > 展示名 > 住所・説明の順に重く数える
+	@Test
+	void relevanceFollowsFieldBoosts() {
+		add(withFields(1L, "テスト美術館", "テスト展", "テスト県", "印象派の作品"));
+		add(withFields(2L, "印象派の作品", "テスト展", "テスト県", "テスト説明"));
+		add(withFields(3L, "テスト美術館", "印象派の作品", "テスト県", "テスト説明"));
+		add(withFields(4L, "テスト美術館", "テスト展", "印象派の作品", "テスト説明"));
+
+		List<Long> ranked = index.search("印象派", PageRequest.of(0, 10, Sort.by(MuseumSearchIndex.RELEVANCE)), false)
+			.getPage().getContent();
+
+		assertThat(ranked).hasSize(4);
+		assertThat(ranked.subList(0, 2)).containsExactly(2L, 3L);
+		assertThat(ranked.subList(2, 4)).containsExactlyInAnyOrder(1L, 4L);
+	}
+
+	// ひらがな・全角英数・長音の揺れは、索引と検索の両方で同じ形に正規化される
+	@Test
+	void keywordVariantsMatchTheSameMuseum() {
+		add(museum(1L, "ミュージアムＡＢＣ", "東京都港区", null));
+
+		assertThat(index.searchIds("みゅーじあむ")).containsExactly(1L);
+		assertThat(index.searchIds("ミュジアム")).containsExactly(1L);
+		assertThat(index.searchIds("abc")).containsExactly(1L);
+	}
+
+	@Test
+	void pagesCountEveryHitAndCollectTheHitSet() {
+		for (long id = 1; id <= 25; id++) {
+			add(museum(id, "美術館" + id, "東京都", LocalDate.of(2025, 1, 1).plusDays(id)));
+		}
+
+		PageRequest second = PageRequest.of(1, 10, Sort.by("startDate"));
+		MuseumSearchIndex.Result result = index.search("美術館", second, true);
+
+		assertThat(result.getPage().getTotalElements()).isEqualTo(25);
+		assertThat(result.getPage().getContent()).containsExactly(11L, 12L, 13L, 14L, 15L, 16L, 17L, 18L, 19L, 20L);
+		assertThat(result.getHits().getCardinality()).isEqualTo(25);
+		assertThat(index.search("美術館", second, false).getHits()).isNull();
+		assertThat(index.search("美術館", PageRequest.of(5, 10, Sort.by("startDate")), false).getPage().getContent()).isEmpty();
+	}
+
+	// 開始日・ID 順に続きから読み、開始日のない美術館は末尾に並ぶ
+	@Test
+	void searchAfterWalksEveryHitOnceInStartDateOrder() {
+		List<Museum> museums = new ArrayList<>();
+		for (long id = 1; id <= 23; id++) {
+			LocalDate startDate = id % 5 == 0 ? null : LocalDate.of(2025, 1, 1).plusDays(id % 7);
+			museums.add(museum(id, "美術館" + id, "東京都", startDate));
+		}
+		museums.forEach(this::add);
+		Map<Long, Museum> byId = museums.stream().collect(Collectors.toMap(Museum::getId, Function.identity()));
+
+		List<Long> walked = new ArrayList<>();
+		MuseumCursor cursor = MuseumCursor.FIRST;
+		while (true) {
+			List<Long> page = index.searchAfter("美術館", cursor, 4);
+			if (page.isEmpty()) break;
+			walked.addAll(page);
+			cursor = MuseumCursor.after(byId.get(page.get(page.size() - 1)));
+		}
+
+		List<Long> expected = museums.stream()
+			.sorted((a, b) -> {
+				if (a.getStartDate() == null || b.getStartDate() == null) {
+					if (a.getStartDate() != b.getStartDate()) return a.getStartDate() == null ? 1 : -1;
+				} else if (!a.getStartDate().equals(b.getStartDate())) {
+					return a.getStartDate().compareTo(b.getStartDate());
+				}
+				return a.getId().compareTo(b.getId());
+			})
+			.map(Museum::getId)
+			.toList();
+		assertThat(walked).containsExactlyElementsOf(expected);
+	}
+
+	@Test
+	void updatesAndDeletesAreVisibleToTheNextSearch() {
+		add(museum(1L, "国立西洋美術館", "東京都", null));
+		index.onMuseumChanged(MuseumChangedEvent.saved(museum(1L, "森美術館", "東京都", null)));
+		assertThat(index.searchIds("西洋")).isEmpty();
+		assertThat(index.searchIds("森")).containsExactly(1L);
+
+		index.onMuseumChanged(MuseumChangedEvent.deleted(1L));
+		assertThat(index.searchIds("森")).isEmpty();
+	}
+
+	private void add(Museum museum) {
+		index.onMuseumsImported(new MuseumsImportedEvent(List.of(museum)));
+	}
+
+	private static Museum withFields(long id, String name, String exhibition, String address, String description) {
+		return Museum.builder().id(id).name(name).exhibition(exhibition).address(address).description(description).build();
+	}
+
+	private static Museum museum(long id, String name, String address, LocalDate startDate) {
+		return Museum.builder().id(id).name(name).address(address).startDate(startDate).build();
+	}
+}
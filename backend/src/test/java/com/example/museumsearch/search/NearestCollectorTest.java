@@ -0,0 +1,75 @@
+package com.example.museumsearch.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.museumsearch.util.GeoDistance;
+
+class NearestCollectorTest {
+
+	// ヒープの拡張をまたぐ件数でも、全件を並べ替えた先頭と一致する
+	@Test
+	void keepsTheClosestInDistanceThenIdOrder() {
+		Random random = new Random(3);
+		for (int limit : new int[] { 1, 5, 64, 200, Integer.MAX_VALUE }) {
+			NearestCollector collector = new NearestCollector(limit, Double.POSITIVE_INFINITY);
+			List<double[]> offered = new ArrayList<>();
+			for (long id = 1; id <= 500; id++) {
+				// 同じ距離を多く作り、ID による並びも確かめる
+				double chordSquared = random.nextInt(100) * 1e-6;
+				collector.offer(chordSquared, id);
+				offered.add(new double[] { chordSquared, id });
+			}
+
+			List<Long> expected = offered.stream()
+				.sorted(Comparator.<double[]>comparingDouble(entry -> entry[0]).thenComparingDouble(entry -> entry[1]))
+				.limit(limit)
+				.map(entry -> (long) entry[1])
+				.toList();
+			assertThat(collector.toNeighbors()).extracting(MuseumGeoIndex.Neighbor::getMuseumId)
+				.as("limit=%s", limit)
+				.containsExactlyElementsOf(expected);
+		}
+	}
+
+	@Test
+	void dropsCandidatesBeyondTheMaximumDistance() {
+		NearestCollector collector = new NearestCollector(10, 10);
+		collector.offer(chordSquared(9.9), 1L);
+		collector.offer(chordSquared(10.1), 2L);
+		collector.offer(chordSquared(3), 3L);
+
+		List<MuseumGeoIndex.Neighbor> neighbors = collector.toNeighbors();
+		assertThat(neighbors).extracting(MuseumGeoIndex.Neighbor::getMuseumId).containsExactly(3L, 1L);
+		assertThat(neighbors.get(0).getDistanceKm()).isCloseTo(3, within(1e-9));
+		assertThat(neighbors.get(1).getDistanceKm()).isCloseTo(9.9, within(1e-9));
+	}
+
+	// 埋まるまでは上限距離、埋まった後は最も遠い候補までの距離で打ち切れる
+	@Test
+	void thresholdShrinksOnceTheHeapIsFull() {
+		NearestCollector collector = new NearestCollector(2, 50);
+		assertThat(collector.thresholdKm()).isCloseTo(50, within(1e-9));
+
+		collector.offer(chordSquared(20), 1L);
+		assertThat(collector.thresholdKm()).isCloseTo(50, within(1e-9));
+		collector.offer(chordSquared(30), 2L);
+		assertThat(collector.thresholdKm()).isCloseTo(30, within(1e-9));
+		collector.offer(chordSquared(5), 3L);
+		assertThat(collector.thresholdKm()).isCloseTo(20, within(1e-9));
+
+		assertThat(new NearestCollector(1, Double.POSITIVE_INFINITY).thresholdKm()).isInfinite();
+	}
+
+	private static double chordSquared(double distanceKm) {
+		double chord = 2 * Math.sin(distanceKm / (2 * GeoDistance.EARTH_RADIUS_KM));
+		return chord * chord;
+	}
+}
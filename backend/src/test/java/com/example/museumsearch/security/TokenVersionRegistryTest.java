@@ -0,0 +1,102 @@
+package com.example.museumsearch.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.museumsearch.event.UserChangedEvent;
+import com.example.museumsearch.repository.UserRepository;
+
+class TokenVersionRegistryTest {
+
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private TokenVersionRegistry registry;
+
+	@BeforeEach
+	void setUp() {
+		when(userRepository.findAllTokenVersions()).thenReturn(rows(1L, 0, 2L, 0));
+		registry = new TokenVersionRegistry(userRepository);
+		ReflectionTestUtils.setField(registry, "authenticationMode", AuthenticationMode.STATELESS);
+		ReflectionTestUtils.setField(registry, "refreshInterval", Duration.ofHours(1));
+		registry.load();
+	}
+
+	@AfterEach
+	void tearDown() {
+		registry.close();
+	}
+
+	// 読み直しの最中にこのノードで失効・削除したユーザーは、読み込んだ古い値で戻さない
+	@Test
+	void changesDuringRefreshAreKeptOnTopOfTheLoadedSnapshot() {
+		when(userRepository.findTokenVersionById(1L)).thenReturn(Optional.of(1));
+		when(userRepository.findAllTokenVersions()).thenAnswer(invocation -> {
+			registry.onUserChanged(UserChangedEvent.saved(1L, "a@example.com"));
+			registry.onUserChanged(UserChangedEvent.deleted(2L, "b@example.com"));
+			return rows(1L, 0, 2L, 0, 3L, 0);
+		});
+
+		refresh();
+
+		assertThat(registry.isCurrent(1L, 1)).isTrue();
+		assertThat(registry.isCurrent(1L, 0)).isFalse();
+		assertThat(registry.isCurrent(2L, 0)).isFalse();
+		assertThat(registry.isCurrent(3L, 0)).isTrue();
+		verify(userRepository, never()).findTokenVersionById(3L);
+	}
+
+	// 他のノードでさらに失効していれば、読み込んだ新しいバージョンを採る
+	@Test
+	void newerVersionFromAnotherNodeWins() {
+		when(userRepository.findTokenVersionById(1L)).thenReturn(Optional.of(1));
+		when(userRepository.findAllTokenVersions()).thenAnswer(invocation -> {
+			registry.onUserChanged(UserChangedEvent.saved(1L, "a@example.com"));
+			return rows(1L, 2, 2L, 0);
+		});
+
+		refresh();
+
+		assertThat(registry.isCurrent(1L, 2)).isTrue();
+		assertThat(registry.isCurrent(1L, 1)).isFalse();
+	}
+
+	// 変更の記録は差し替えで使い切り、次の読み直しでは読み込んだ値がそのまま使われる
+	@Test
+	void laterRefreshUsesTheLoadedValues() {
+		when(userRepository.findTokenVersionById(1L)).thenReturn(Optional.of(1));
+		registry.onUserChanged(UserChangedEvent.saved(1L, "a@example.com"));
+		refresh();
+		assertThat(registry.isCurrent(1L, 1)).isTrue();
+
+		when(userRepository.findAllTokenVersions()).thenReturn(rows(2L, 0));
+		refresh();
+
+		assertThat(registry.isCurrent(2L, 0)).isTrue();
+		when(userRepository.findTokenVersionById(1L)).thenReturn(Optional.empty());
+		assertThat(registry.isCurrent(1L, 1)).isFalse();
+	}
+
+	private void refresh() {
+		ReflectionTestUtils.invokeMethod(registry, "refresh");
+	}
+
+	private static List<Object[]> rows(Object... idsAndVersions) {
+		List<Object[]> rows = new ArrayList<>();
+		for (int i = 0; i < idsAndVersions.length; i += 2) {
+			rows.add(new Object[] { idsAndVersions[i], idsAndVersions[i + 1] });
+		}
+		return rows;
+	}
+}
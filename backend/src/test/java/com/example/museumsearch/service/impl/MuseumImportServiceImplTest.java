@@ -0,0 +1,85 @@
+package com.example.museumsearch.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.museumsearch.config.DataLoader;
+import com.example.museumsearch.config.MuseumCsvParser;
+import com.example.museumsearch.dto.MuseumImportFormat;
+import com.example.museumsearch.dto.MuseumImportReport;
+import com.example.museumsearch.model.User;
+import com.example.museumsearch.repository.MuseumRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+
+class MuseumImportServiceImplTest {
+
+	private MuseumImportServiceImpl importService;
+
+	@BeforeEach
+	void setUp() {
+		DataLoader dataLoader = mock(DataLoader.class);
+		when(dataLoader.isLoaded()).thenReturn(true);
+		importService = new MuseumImportServiceImpl(mock(MuseumRepository.class), mock(MuseumCsvParser.class), dataLoader,
+			mock(TransactionTemplate.class), mock(EntityManager.class), mock(Validator.class), mock(JdbcTemplate.class),
+			new ObjectMapper(), mock(ApplicationEventPublisher.class));
+		ReflectionTestUtils.setField(importService, "batchSize", 500);
+		ReflectionTestUtils.setField(importService, "maxErrors", 3);
+	}
+
+	@AfterEach
+	void tearDown() {
+		importService.close();
+	}
+
+	// 保持するエラーは先頭から上限件数までだが、スキップした行はすべて数える
+	@Test
+	void rowErrorsAreCappedWhileEverySkippedRowIsCounted() throws Exception {
+		String ndjson = String.join("\n",
+			"{broken", "[1]", "", "\"text\"", "{", "42", "null", "{\"name\":");
+
+		MuseumImportReport report = runImport(ndjson);
+
+		assertThat(report.getStatus()).isEqualTo(MuseumImportReport.Status.COMPLETED);
+		assertThat(report.getProcessedRows()).isEqualTo(7);
+		assertThat(report.getSkipped()).isEqualTo(7);
+		assertThat(report.getInserted()).isZero();
+		assertThat(report.getErrors()).extracting(MuseumImportReport.RowError::getLine).containsExactly(1L, 2L, 4L);
+		assertThat(report.getErrors().get(1).getMessage()).isEqualTo("JSONオブジェクトではありません");
+	}
+
+	@Test
+	void fewerErrorsThanTheCapAreAllKept() throws Exception {
+		MuseumImportReport report = runImport("[1]\n{broken");
+
+		assertThat(report.getSkipped()).isEqualTo(2);
+		assertThat(report.getErrors()).extracting(MuseumImportReport.RowError::getLine).containsExactly(1L, 2L);
+	}
+
+	private MuseumImportReport runImport(String ndjson) throws Exception {
+		User user = new User();
+		ReflectionTestUtils.setField(user, "id", 1L);
+		MuseumImportReport queued = importService.startImport(
+			new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), MuseumImportFormat.NDJSON, user);
+
+		// 取り込みは専用スレッドで順に処理されるので、後ろに積んだ空の処理が終われば完了している
+		ExecutorService executor = (ExecutorService) ReflectionTestUtils.getField(importService, "importExecutor");
+		executor.submit(() -> { }).get();
+		return importService.getImport(queued.getId());
+	}
+}
@@ -0,0 +1,34 @@
+package com.example.museumsearch.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class JapaneseTextNormalizerTest {
+
+	@Test
+	void foldsWidthCaseAndHiragana() {
+		assertThat(JapaneseTextNormalizer.normalize("ＡＢＣ美術館１２３")).isEqualTo("abc美術館123");
+		assertThat(JapaneseTextNormalizer.normalize("ﾃﾞｼﾞﾀﾙｱｰﾄ")).isEqualTo("デジタルアト");
+		assertThat(JapaneseTextNormalizer.normalize("みなとみらい")).isEqualTo("ミナトミライ");
+		assertThat(JapaneseTextNormalizer.normalize("いすゞ")).isEqualTo("イスヾ");
+		assertThat(JapaneseTextNormalizer.normalize(null)).isNull();
+	}
+
+	// 長音とカナの後のダッシュ類は落とすが、番地などの英数字の後のハイフンは残す
+	@Test
+	void dropsLongVowelsOnlyAfterKana() {
+		assertThat(JapaneseTextNormalizer.normalize("ミュージアム")).isEqualTo("ミュジアム");
+		assertThat(JapaneseTextNormalizer.normalize("ミュ-ジアム")).isEqualTo("ミュジアム");
+		assertThat(JapaneseTextNormalizer.normalize("ミュ〜ジアム")).isEqualTo("ミュジアム");
+		assertThat(JapaneseTextNormalizer.normalize("みゅーじあむ")).isEqualTo("ミュジアム");
+		assertThat(JapaneseTextNormalizer.normalize("上野公園7-7")).isEqualTo("上野公園7-7");
+		assertThat(JapaneseTextNormalizer.normalize("A-1ビル")).isEqualTo("a-1ビル");
+	}
+
+	@Test
+	void collapsesAndTrimsWhitespace() {
+		assertThat(JapaneseTextNormalizer.normalize("  国立　 西洋\t美術館  ")).isEqualTo("国立 西洋 美術館");
+		assertThat(JapaneseTextNormalizer.normalize("　")).isEmpty();
+	}
+}
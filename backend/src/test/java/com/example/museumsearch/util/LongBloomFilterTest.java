@@ -0,0 +1,44 @@
+package com.example.museumsearch.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class LongBloomFilterTest {
+
+	@Test
+	void neverMissesAnAddedValue() {
+		LongBloomFilter filter = new LongBloomFilter(1000);
+		Random random = new Random(5);
+		Set<Long> added = new HashSet<>();
+		for (long id = 1; id <= 500; id++) {
+			added.add(id);
+			added.add(random.nextLong());
+		}
+		added.forEach(filter::add);
+
+		assertThat(added).allMatch(filter::mightContain);
+	}
+
+	// ユーザーIDのような連番でも、入れていない値の大半はマップを引かずに外れる
+	@Test
+	void falsePositivesStayRareAtTheExpectedSize() {
+		int expected = 1024;
+		LongBloomFilter filter = new LongBloomFilter(expected);
+		for (long id = 1; id <= expected; id++) {
+			filter.add(id * 7);
+		}
+
+		int falsePositives = 0;
+		int probes = 100_000;
+		for (long id = 1; id <= probes; id++) {
+			if (filter.mightContain(id * 7 + 3)) falsePositives++;
+		}
+		assertThat((double) falsePositives / probes).isLessThan(0.01);
+		assertThat(new LongBloomFilter(expected).mightContain(7)).isFalse();
+	}
+}
@@ -0,0 +1,37 @@
+package com.example.museumsearch.search;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+// vector-api プロファイルでビルドしたときだけコンパイルされ、DistanceKernels からクラス名で読み込まれる
+class VectorDistanceKernel implements DistanceKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public String toString() {
+        return SPECIES.length() + "レーン";
+    }
+
+    @Override
+    public void chordSquared(double qx, double qy, double qz, double[] x, double[] y, double[] z, int length, double[] out) {
+        DoubleVector vx = DoubleVector.broadcast(SPECIES, qx);
+        DoubleVector vy = DoubleVector.broadcast(SPECIES, qy);
+        DoubleVector vz = DoubleVector.broadcast(SPECIES, qz);
+
+        int i = 0;
+        int upperBound = SPECIES.loopBound(length);
+        for (; i < upperBound; i += SPECIES.length()) {
+            DoubleVector dx = DoubleVector.fromArray(SPECIES, x, i).sub(vx);
+            DoubleVector dy = DoubleVector.fromArray(SPECIES, y, i).sub(vy);
+            DoubleVector dz = DoubleVector.fromArray(SPECIES, z, i).sub(vz);
+            dx.mul(dx).add(dy.mul(dy)).add(dz.mul(dz)).intoArray(out, i);
+        }
+        for (; i < length; i++) {
+            double dx = x[i] - qx;
+            double dy = y[i] - qy;
+            double dz = z[i] - qz;
+            out[i] = dx * dx + dy * dy + dz * dz;
+        }
+    }
+}